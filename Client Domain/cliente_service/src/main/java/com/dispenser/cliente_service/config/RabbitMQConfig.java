@@ -0,0 +1,24 @@
+package com.dispenser.cliente_service.config;
+
+import com.dispenser.commons.amqp.EventoMessageConverter;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RabbitMQConfig {
+    public static final String CLIENTE_UPDATED_EXCHANGE = "cliente.updated.exchange";
+    public static final String CLIENTE_UPDATED_ROUTING_KEY = "cliente.updated";
+
+    // Eventos en binario (CBOR) con cabecera de versión de esquema
+    @Bean
+    public MessageConverter eventoMessageConverter() {
+        return new EventoMessageConverter();
+    }
+
+    @Bean
+    public TopicExchange clienteUpdatedExchange() {
+        return new TopicExchange(CLIENTE_UPDATED_EXCHANGE);
+    }
+}
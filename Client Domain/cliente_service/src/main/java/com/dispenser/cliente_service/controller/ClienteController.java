@@ -24,6 +24,11 @@ public class ClienteController {
         return clienteService.obtenerTodosLosClientes();
     }
 
+    @PostMapping("/batch")
+    public List<Cliente> obtenerClientesPorIds(@RequestBody List<Long> ids) {
+        return clienteService.obtenerClientesPorIds(ids);
+    }
+
     @PutMapping("/{id}")
     public Cliente actualizarCliente(@PathVariable Long id, @RequestBody Cliente clienteDetalles) {
         return clienteService.actualizarCliente(id, clienteDetalles);
@@ -0,0 +1,18 @@
+package com.dispenser.cliente_service.event;
+
+public class ClienteUpdatedEvent {
+    private Long clientId;
+    // Dirección vigente, para los servicios que la copian (cobro la usa en sus órdenes pendientes)
+    private String address;
+
+    public ClienteUpdatedEvent() {}
+    public ClienteUpdatedEvent(Long clientId, String address) {
+        this.clientId = clientId;
+        this.address = address;
+    }
+
+    public Long getClientId() { return clientId; }
+    public void setClientId(Long clientId) { this.clientId = clientId; }
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+}
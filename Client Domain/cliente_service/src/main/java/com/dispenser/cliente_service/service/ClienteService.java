@@ -1,19 +1,30 @@
 package com.dispenser.cliente_service.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.dispenser.cliente_service.config.RabbitMQConfig;
+import com.dispenser.cliente_service.event.ClienteUpdatedEvent;
 import com.dispenser.cliente_service.model.Cliente;
 import com.dispenser.cliente_service.repository.ClienteRepository;
 
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class ClienteService {
+    private static final Logger logger = LoggerFactory.getLogger(ClienteService.class);
+
     @Autowired
     private ClienteRepository clienteRepository;
 
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
     public Cliente crearCliente(Cliente cliente) {
         return clienteRepository.save(cliente);
     }
@@ -29,11 +40,28 @@ public class ClienteService {
             cliente.setNombre(clienteDetalles.getNombre());
             cliente.setDireccion(clienteDetalles.getDireccion());
             cliente.setContacto(clienteDetalles.getContacto());
-            return clienteRepository.save(cliente);
+            Cliente savedCliente = clienteRepository.save(cliente);
+
+            // Avisar a los servicios que guardan el cliente en caché
+            rabbitTemplate.convertAndSend(
+                    RabbitMQConfig.CLIENTE_UPDATED_EXCHANGE,
+                    RabbitMQConfig.CLIENTE_UPDATED_ROUTING_KEY,
+                    new ClienteUpdatedEvent(savedCliente.getId_cliente(), savedCliente.getDireccion())
+            );
+            logger.info("Evento cliente.updated enviado para el cliente {}", savedCliente.getId_cliente());
+            return savedCliente;
         }
         throw new RuntimeException("Cliente no encontrado");
     }
 
+    // Una sola consulta para todos los IDs solicitados; los que no existen se omiten
+    public List<Cliente> obtenerClientesPorIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return clienteRepository.findAllById(new LinkedHashSet<>(ids));
+    }
+
     public Cliente obtenerClientePorId(Long id) {
         return clienteRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Cliente no encontrado"));
@@ -1,9 +1,11 @@
 package com.dispenser.dispatch_service.config;
 
+import com.dispenser.commons.amqp.EventoMessageConverter;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -14,9 +16,9 @@ public class RabbitMQConfig {
     public static final String COBRO_COMPLETED_ROUTING_KEY = "cobro.completed";
     public static final String DISPATCH_UPDATE_QUEUE = "dispatch.update.queue";
 
-    public static final String ORDER_CREATED_EXCHANGE = "order.created.exchange";
+    public static final String ORDER_EVENTS_EXCHANGE = "order.events.exchange";
     public static final String ORDER_CREATED_ROUTING_KEY = "order.created";
-    public static final String ORDER_CREATED_QUEUE = "order.created.queue";
+    public static final String ORDER_CREATED_QUEUE = "dispatch.order.created.queue";
 
     public static final String DESPACHO_UPDATE_EXCHANGE = "despacho.update.exchange";
     public static final String DESPACHO_UPDATE_ROUTING_KEY = "despacho.update";
@@ -41,8 +43,8 @@ public class RabbitMQConfig {
     }
 
     @Bean
-    public DirectExchange orderCreatedExchange() {
-        return new DirectExchange(ORDER_CREATED_EXCHANGE);
+    public TopicExchange orderEventsExchange() {
+        return new TopicExchange(ORDER_EVENTS_EXCHANGE);
     }
 
     @Bean
@@ -51,10 +53,10 @@ public class RabbitMQConfig {
     }
 
     @Bean
-    public Binding orderCreatedBinding(Queue orderCreatedQueue, DirectExchange orderCreatedExchange) {
+    public Binding orderCreatedBinding(Queue orderCreatedQueue, TopicExchange orderEventsExchange) {
         return BindingBuilder
                 .bind(orderCreatedQueue)
-                .to(orderCreatedExchange)
+                .to(orderEventsExchange)
                 .with(ORDER_CREATED_ROUTING_KEY);
     }
 
@@ -84,9 +86,15 @@ public class RabbitMQConfig {
     }
 
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+    public MessageConverter eventoMessageConverter() {
+        return new EventoMessageConverter();
+    }
+
+    @Bean
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, MessageConverter eventoMessageConverter) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setExchange(DESPACHO_UPDATE_EXCHANGE); // Opcional, para pruebas
+        rabbitTemplate.setMessageConverter(eventoMessageConverter);
         return rabbitTemplate;
     }
 
@@ -1,5 +1,6 @@
 package com.dispenser.dispatch_service.consumer;
 
+import com.dispenser.dispatch_service.event.CobroCompletedEvent;
 import com.dispenser.dispatch_service.model.Despacho;
 import com.dispenser.dispatch_service.service.DespachoService;
 import org.slf4j.Logger;
@@ -17,19 +18,18 @@ public class CobroCompletedConsumer {
     private DespachoService despachoService;
 
     @RabbitListener(queues = "#{rabbitMQConfig.dispatchUpdateQueue().getName()}")
-    public void processCobroCompleted(String message) {
-        logger.info("Mensaje recibido en CobroCompletedConsumer: {}", message);
+    public void processCobroCompleted(CobroCompletedEvent event) {
+        logger.info("Evento recibido en CobroCompletedConsumer para la orden {}", event.getOrderId());
 
         try {
-            String[] parts = message.split(",");
-            if (parts.length < 4) {
-                throw new IllegalArgumentException("Mensaje inválido: se requieren idOrden, ubicacion, totalEnvio y montoTotal");
+            if (event.getOrderId() == null) {
+                throw new IllegalArgumentException("Evento inválido: se requiere idOrden");
             }
 
-            Long idOrden = Long.parseLong(parts[1].split("=")[1]); // idOrden=23
-            String ubicacion = parts[2].split("=")[1]; // ubicacion=...
-            double totalEnvio = Double.parseDouble(parts[3].split("=")[1]); // totalEnvio=47.00
-            double montoTotal = Double.parseDouble(parts[4].split("=")[1]); // montoTotal=147.00
+            Long idOrden = event.getOrderId();
+            String ubicacion = event.getDeliveryAddress();
+            double totalEnvio = event.getShippingTotal() != null ? event.getShippingTotal() : 0.0;
+            Double montoTotal = event.getTotalAmount();
 
             // Obtener o crear el despacho
             Despacho despacho = despachoService.obtenerDespachoPorIdOrden(idOrden)
@@ -48,7 +48,7 @@ public class CobroCompletedConsumer {
             logger.info("Despacho actualizado para orden {}: Estado={}, Ubicación={}, TotalEnvio={}, MontoTotal={}",
                     idOrden, despacho.getEstado(), despacho.getDireccionEntrega(), despacho.getTotalEnvio(), montoTotal);
         } catch (Exception e) {
-            logger.error("Error al procesar mensaje de cobro completado: {}", e.getMessage(), e);
+            logger.error("Error al procesar evento de cobro completado: {}", e.getMessage(), e);
         }
     }
 }
\ No newline at end of file
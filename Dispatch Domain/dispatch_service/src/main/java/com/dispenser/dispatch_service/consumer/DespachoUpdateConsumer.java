@@ -1,5 +1,6 @@
 package com.dispenser.dispatch_service.consumer;
 
+import com.dispenser.dispatch_service.event.DespachoUpdatedEvent;
 import com.dispenser.dispatch_service.model.Despacho;
 import com.dispenser.dispatch_service.service.DespachoService;
 import org.slf4j.Logger;
@@ -19,18 +20,17 @@ public class DespachoUpdateConsumer {
     private DespachoService despachoService;
 
     @RabbitListener(queues = "despacho.update.queue")
-    public void processDespachoUpdate(String message) {
-        logger.info("Mensaje recibido en DespachoUpdateConsumer: {}", message);
+    public void processDespachoUpdate(DespachoUpdatedEvent event) {
+        logger.info("Evento recibido en DespachoUpdateConsumer para el despacho {}", event.getDispatchId());
 
         try {
-            String[] parts = message.split(",");
-            if (parts.length < 3) {
-                throw new IllegalArgumentException("Mensaje inválido: se requieren idDespacho, estado y fechaDespacho");
+            if (event.getDispatchId() == null || event.getStatus() == null || event.getDispatchDate() == null) {
+                throw new IllegalArgumentException("Evento inválido: se requieren idDespacho, estado y fechaDespacho");
             }
 
-            Long idDespacho = Long.parseLong(parts[0].split("=")[1]); // idDespacho=X
-            String estado = parts[1].split("=")[1];                   // estado=enviada
-            LocalDateTime fechaDespacho = LocalDateTime.parse(parts[2].split("=")[1]); // fechaDespacho=2025-06-30T...
+            Long idDespacho = event.getDispatchId();
+            String estado = event.getStatus();
+            LocalDateTime fechaDespacho = event.getDispatchDate();
 
             Despacho despacho = despachoService.obtenerDespachoPorId(idDespacho);
             if (despacho == null) {
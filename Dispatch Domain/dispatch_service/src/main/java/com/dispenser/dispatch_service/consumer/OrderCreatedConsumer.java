@@ -1,5 +1,6 @@
 package com.dispenser.dispatch_service.consumer;
 
+import com.dispenser.dispatch_service.event.OrderCreatedEvent;
 import com.dispenser.dispatch_service.model.Despacho;
 import com.dispenser.dispatch_service.service.DespachoService;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
@@ -13,13 +14,12 @@ public class OrderCreatedConsumer {
     private DespachoService despachoService;
 
     @RabbitListener(queues = "#{rabbitMQConfig.orderCreatedQueue().getName()}")
-    public void processOrderCreated(String message) {
-        String[] parts = message.split(",");
-        if (parts.length < 2) {
-            throw new IllegalArgumentException("Mensaje inválido: se requieren idOrden y estado");
+    public void processOrderCreated(OrderCreatedEvent event) {
+        if (event.getOrderId() == null || event.getStatus() == null) {
+            throw new IllegalArgumentException("Evento inválido: se requieren idOrden y estado");
         }
-        Long idOrden = Long.parseLong(parts[0]);
-        String estadoInicial = parts[1];
+        Long idOrden = event.getOrderId();
+        String estadoInicial = event.getStatus();
 
         // Verificar si ya existe un despacho para esta orden
         if (!despachoService.obtenerDespachoPorIdOrden(idOrden).isPresent()) {
@@ -0,0 +1,23 @@
+package com.dispenser.dispatch_service.event;
+
+import java.time.LocalDateTime;
+
+public class DespachoUpdatedEvent {
+    private Long dispatchId;
+    private String status;
+    private LocalDateTime dispatchDate;
+
+    public DespachoUpdatedEvent() {}
+    public DespachoUpdatedEvent(Long dispatchId, String status, LocalDateTime dispatchDate) {
+        this.dispatchId = dispatchId;
+        this.status = status;
+        this.dispatchDate = dispatchDate;
+    }
+
+    public Long getDispatchId() { return dispatchId; }
+    public void setDispatchId(Long dispatchId) { this.dispatchId = dispatchId; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public LocalDateTime getDispatchDate() { return dispatchDate; }
+    public void setDispatchDate(LocalDateTime dispatchDate) { this.dispatchDate = dispatchDate; }
+}
@@ -0,0 +1,23 @@
+package com.dispenser.dispatch_service.event;
+
+import java.util.List;
+
+public class OrderCreatedEvent {
+    private Long orderId;
+    private String status;
+    private List<OrderItem> items;
+
+    public OrderCreatedEvent() {}
+    public OrderCreatedEvent(Long orderId, String status, List<OrderItem> items) {
+        this.orderId = orderId;
+        this.status = status;
+        this.items = items;
+    }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public List<OrderItem> getItems() { return items; }
+    public void setItems(List<OrderItem> items) { this.items = items; }
+}
@@ -1,22 +1,17 @@
-package com.dispenser.orders_service.model;
+package com.dispenser.dispatch_service.event;
 
-import jakarta.persistence.*;
-
-@Entity
-@Table(name = "order_items")
 public class OrderItem {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
     private Long itemId;
     private Integer quantity;
 
-    // Getters and Setters
-    public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
+    public OrderItem() {}
+    public OrderItem(Long itemId, Integer quantity) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+    }
+
     public Long getItemId() { return itemId; }
     public void setItemId(Long itemId) { this.itemId = itemId; }
     public Integer getQuantity() { return quantity; }
     public void setQuantity(Integer quantity) { this.quantity = quantity; }
-}
\ No newline at end of file
+}
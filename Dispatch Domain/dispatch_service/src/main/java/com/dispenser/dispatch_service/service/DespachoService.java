@@ -2,6 +2,7 @@ package com.dispenser.dispatch_service.service;
 
 import com.dispenser.dispatch_service.model.Despacho;
 import com.dispenser.dispatch_service.dto.OrdenDTO;
+import com.dispenser.dispatch_service.event.DispatchScheduledEvent;
 import com.dispenser.dispatch_service.repository.DespachoRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,9 +68,9 @@ public class DespachoService {
 
         // Publicar mensaje cuando se asigne la fecha
         if (fechaDespacho != null) {
-            String message = savedDespacho.getIdDespacho() + "," + savedDespacho.getIdOrden();
-            rabbitTemplate.convertAndSend(DISPATCH_UPDATED_EXCHANGE, DISPATCH_UPDATED_ROUTING_KEY, message);
-            logger.info("Mensaje enviado a {} con Routing Key {}: {}", DISPATCH_UPDATED_EXCHANGE, DISPATCH_UPDATED_ROUTING_KEY, message);
+            DispatchScheduledEvent event = new DispatchScheduledEvent(savedDespacho.getIdDespacho(), savedDespacho.getIdOrden());
+            rabbitTemplate.convertAndSend(DISPATCH_UPDATED_EXCHANGE, DISPATCH_UPDATED_ROUTING_KEY, event);
+            logger.info("Evento enviado a {} con Routing Key {}: despacho {}, orden {}", DISPATCH_UPDATED_EXCHANGE, DISPATCH_UPDATED_ROUTING_KEY, event.getDispatchId(), event.getOrderId());
         }
         return savedDespacho;
     }
@@ -0,0 +1,66 @@
+package com.dispenser.inventory_service.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Crea el índice único uk_inventario_producto, que ddl-auto=update no puede crear si ya
+ * hay varias filas del mismo producto (solo deja un aviso en el log). De cada producto
+ * repetido se conserva la fila con la versión de stock más alta y las demás se mueven a
+ * inventario_duplicado. Los INSERT ... ON CONFLICT (id_producto) de InventarioService
+ * necesitan el índice, así que si sigue faltando el servicio no arranca. Es idempotente:
+ * con el índice creado no se toca nada.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class MigracionInventario {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigracionInventario.class);
+
+    private static final String INDICE = "uk_inventario_producto";
+
+    private static final String INDICE_EXISTE_SQL =
+            "SELECT count(*) FROM pg_indexes WHERE schemaname = current_schema() AND tablename = 'inventario' AND indexname = ?";
+    private static final String CREAR_ARCHIVO_SQL =
+            "CREATE TABLE IF NOT EXISTS inventario_duplicado (id_inventario bigint NOT NULL, "
+                    + "fila jsonb NOT NULL, fecha_migracion timestamp NOT NULL DEFAULT now())";
+    // Archiva y borra en la misma sentencia las filas sobrantes de cada producto
+    private static final String DEDUPLICAR_SQL =
+            "WITH duplicados AS (SELECT id_inventario FROM (SELECT id_inventario, row_number() OVER (PARTITION BY id_producto "
+                    + "ORDER BY version_stock DESC, id_inventario DESC) AS n FROM inventario) r WHERE r.n > 1), "
+                    + "archivados AS (INSERT INTO inventario_duplicado (id_inventario, fila) "
+                    + "SELECT i.id_inventario, to_jsonb(i) FROM inventario i JOIN duplicados d ON d.id_inventario = i.id_inventario) "
+                    + "DELETE FROM inventario i USING duplicados d WHERE i.id_inventario = d.id_inventario";
+    private static final String CREAR_INDICE_SQL =
+            "CREATE UNIQUE INDEX IF NOT EXISTS " + INDICE + " ON inventario (id_producto)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void migrar() {
+        if (existeIndice()) {
+            return;
+        }
+        jdbcTemplate.execute(CREAR_ARCHIVO_SQL);
+        int archivados = jdbcTemplate.update(DEDUPLICAR_SQL);
+        if (archivados > 0) {
+            logger.warn("{} filas de inventario repetidas movidas a inventario_duplicado", archivados);
+        }
+        jdbcTemplate.execute(CREAR_INDICE_SQL);
+        if (!existeIndice()) {
+            throw new IllegalStateException("Falta el índice único " + INDICE + " en la tabla inventario");
+        }
+        logger.info("Índice único {} creado en inventario(id_producto)", INDICE);
+    }
+
+    private boolean existeIndice() {
+        Integer total = jdbcTemplate.queryForObject(INDICE_EXISTE_SQL, Integer.class, INDICE);
+        return total != null && total > 0;
+    }
+}
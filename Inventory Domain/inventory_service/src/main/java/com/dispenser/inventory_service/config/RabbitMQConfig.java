@@ -1,6 +1,15 @@
 package com.dispenser.inventory_service.config;
 
+import com.dispenser.commons.amqp.DlqMessageRecoverer;
+import com.dispenser.commons.amqp.EventoMessageConverter;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageRecoverer;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -10,6 +19,49 @@ public class RabbitMQConfig {
     public static final String PRODUCT_CREATED_EXCHANGE = "product.created.exchange";
     public static final String ROUTING_KEY = "product.created";
 
+    public static final String STOCK_EVENTS_EXCHANGE = "stock.events.exchange";
+    public static final String STOCK_MOVEMENT_ROUTING_KEY = "stock.movement";
+    public static final String STOCK_MOVEMENT_QUEUE = "inventory.stock.movement.queue";
+
+    public static final String INVENTORY_EVENTS_EXCHANGE = "inventory.events.exchange";
+    public static final String INVENTORY_LOW_ROUTING_KEY = "inventory.low";
+
+    public static final String DLX_EXCHANGE = "inventory.dlx";
+
+    @Bean
+    public MessageConverter eventoMessageConverter() {
+        return new EventoMessageConverter();
+    }
+
+    // Mensajes que agotan los reintentos: se republican en <cola>.dlq en lugar de descartarse
+    @Bean
+    public MessageRecoverer dlqMessageRecoverer(RabbitTemplate rabbitTemplate) {
+        return new DlqMessageRecoverer(rabbitTemplate, DLX_EXCHANGE);
+    }
+
+    @Bean
+    public Declarables deadLetterDeclarables() {
+        return DlqMessageRecoverer.declarables(DLX_EXCHANGE, PRODUCT_CREATED_QUEUE, STOCK_MOVEMENT_QUEUE);
+    }
+
+    // Consumo en micro-lotes para los eventos de stock; hereda converter y reintentos de spring.rabbitmq.listener.simple
+    @Bean
+    public SimpleRabbitListenerContainerFactory stockBatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${inventario.listener.stock.prefetch:250}") int prefetch,
+            @Value("${inventario.listener.stock.batch-size:100}") int batchSize,
+            @Value("${inventario.listener.stock.receive-timeout-ms:200}") long receiveTimeoutMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        return factory;
+    }
+
     @Bean
     public Queue productCreatedQueue() {
         return new Queue(PRODUCT_CREATED_QUEUE, true);
@@ -27,4 +79,27 @@ public class RabbitMQConfig {
                 .to(productCreatedExchange)
                 .with(ROUTING_KEY);
     }
+
+    @Bean
+    public TopicExchange stockEventsExchange() {
+        return new TopicExchange(STOCK_EVENTS_EXCHANGE);
+    }
+
+    @Bean
+    public Queue stockMovementQueue() {
+        return QueueBuilder.durable(STOCK_MOVEMENT_QUEUE).build();
+    }
+
+    @Bean
+    public Binding stockMovementBinding(Queue stockMovementQueue, TopicExchange stockEventsExchange) {
+        return BindingBuilder
+                .bind(stockMovementQueue)
+                .to(stockEventsExchange)
+                .with(STOCK_MOVEMENT_ROUTING_KEY);
+    }
+
+    @Bean
+    public TopicExchange inventoryEventsExchange() {
+        return new TopicExchange(INVENTORY_EVENTS_EXCHANGE);
+    }
 }
\ No newline at end of file
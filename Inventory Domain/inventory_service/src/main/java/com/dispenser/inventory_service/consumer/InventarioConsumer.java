@@ -1,32 +1,46 @@
 package com.dispenser.inventory_service.consumer;
 
+import com.dispenser.inventory_service.config.RabbitMQConfig;
+import com.dispenser.inventory_service.event.ProductCreatedEvent;
+import com.dispenser.inventory_service.event.StockMovementEvent;
 import com.dispenser.inventory_service.model.Inventario;
 import com.dispenser.inventory_service.service.InventarioService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class InventarioConsumer {
+    private static final Logger logger = LoggerFactory.getLogger(InventarioConsumer.class);
+
     @Autowired
     private InventarioService inventarioService;
 
+    // Los errores se propagan al contenedor: el mensaje se reintenta y termina en product.created.queue.dlq
     @RabbitListener(queues = "${rabbitmq.queue.product.created}") // Asegúrate de que esta propiedad esté definida
-    public void processProductCreated(String message) {
-        System.out.println("Mensaje recibido en InventarioConsumer: " + message); // Log para depuración
-        try {
-            String[] parts = message.split(",");
-            if (parts.length == 2) {
-                Long idProducto = Long.parseLong(parts[0]);
-                Integer stockInicial = Integer.parseInt(parts[1]);
-
-                Inventario inventario = inventarioService.crearInventarioParaProducto(idProducto, stockInicial);
-                System.out.println("Inventario creado para producto ID: " + idProducto + " con stock: " + stockInicial);
-            } else {
-                System.out.println("Formato de mensaje inválido: " + message);
-            }
-        } catch (Exception e) {
-            System.out.println("Error procesando mensaje: " + e.getMessage());
+    public void processProductCreated(ProductCreatedEvent event) {
+        if (event.getProductId() == null) {
+            // Reintentar no cambia el resultado
+            logger.warn("Evento product.created sin ID de producto");
+            return;
         }
+        Long idProducto = event.getProductId();
+        Integer stockInicial = event.getStock() != null ? event.getStock() : 0;
+
+        Inventario inventario = inventarioService.crearInventarioParaProducto(idProducto, stockInicial);
+        logger.debug("Inventario del producto ID: {} con stock: {}", idProducto, inventario.getStockActual());
+    }
+
+    // Micro-lotes en una transacción; la versión de cada evento hace que reentregas y desorden no retrocedan el stock
+    @RabbitListener(queues = RabbitMQConfig.STOCK_MOVEMENT_QUEUE,
+            containerFactory = "stockBatchContainerFactory",
+            concurrency = "${inventario.listener.stock-movement.concurrency:2-8}")
+    public void processStockMovement(List<StockMovementEvent> events) {
+        int aplicados = inventarioService.aplicarMovimientos(events);
+        logger.debug("Lote de {} eventos stock.movement: {} inventarios actualizados", events.size(), aplicados);
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,19 @@
 package com.dispenser.inventory_service.controller;
 
+import com.dispenser.inventory_service.dto.ImportacionResultadoDTO;
+import com.dispenser.inventory_service.dto.StockBajoDTO;
 import com.dispenser.inventory_service.model.Inventario;
 import com.dispenser.inventory_service.repository.InventarioRepository;
+import com.dispenser.inventory_service.service.ImportacionInventario;
 import com.dispenser.inventory_service.service.InventarioService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -19,12 +26,21 @@ public class InventarioController {
     @Autowired
     private InventarioRepository inventarioRepository;
 
+    @Autowired
+    private ImportacionInventario importacionInventario;
+
     // GET - Obtener todos los inventarios
     @GetMapping
     public List<Inventario> obtenerTodos() {
         return inventarioRepository.findAll();
     }
 
+    // GET - Productos por debajo del stock mínimo (índice en memoria, sin consultar la tabla)
+    @GetMapping("/bajo-minimo")
+    public List<StockBajoDTO> obtenerBajoMinimo() {
+        return inventarioService.obtenerBajoMinimo();
+    }
+
     // GET - Obtener inventario por ID
     @GetMapping("/{id}")
     public ResponseEntity<Inventario> obtenerPorId(@PathVariable Long id) {
@@ -32,7 +48,20 @@ public class InventarioController {
         return ResponseEntity.ok(inventario);
     }
 
-    // POST - Crear inventario
+    // GET - Stock de un producto, leído de la tabla local (mantenida por stock.movement)
+    @GetMapping("/producto/{idProducto}")
+    public ResponseEntity<Inventario> obtenerPorProducto(@PathVariable Long idProducto) {
+        Inventario inventario = inventarioService.obtenerInventarioPorProducto(idProducto);
+        return ResponseEntity.ok(inventario);
+    }
+
+    // POST - Inventarios de varios productos en una sola consulta
+    @PostMapping("/producto/batch")
+    public List<Inventario> obtenerPorProductos(@RequestBody List<Long> idsProducto) {
+        return inventarioService.obtenerInventariosPorProductos(idsProducto);
+    }
+
+    // POST - Crear inventario (si el producto ya tiene uno, se devuelve el existente)
     @PostMapping
     public ResponseEntity<Inventario> crearInventario(@RequestParam Long idProducto,
                                                       @RequestParam(required = false) Integer stockInicial) {
@@ -40,6 +69,16 @@ public class InventarioController {
         return ResponseEntity.ok(nuevoInventario);
     }
 
+    // POST - Importación masiva en CSV o NDJSON (idProducto, stockActual, stockMinimo), leída en streaming
+    @PostMapping(value = "/importar", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportacionResultadoDTO> importar(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                            InputStream cuerpo) throws IOException {
+        ImportacionInventario.Formato formato = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? ImportacionInventario.Formato.NDJSON
+                : ImportacionInventario.Formato.CSV;
+        return ResponseEntity.ok(importacionInventario.importar(cuerpo, formato));
+    }
+
     // PUT - Actualizar inventario
     @PutMapping("/{id}")
     public ResponseEntity<Inventario> actualizarInventario(@PathVariable Long id,
@@ -52,10 +91,9 @@ public class InventarioController {
     // DELETE - Eliminar inventario
     @DeleteMapping("/{id}")
     public ResponseEntity<?> eliminarInventario(@PathVariable Long id) {
-        if (!inventarioRepository.existsById(id)) {
+        if (!inventarioService.eliminarInventario(id)) {
             return ResponseEntity.notFound().build();
         }
-        inventarioRepository.deleteById(id);
         return ResponseEntity.ok().build();
     }
 }
@@ -0,0 +1,15 @@
+package com.dispenser.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ErrorFilaDTO {
+    private int linea;
+    private String mensaje;
+}
@@ -0,0 +1,17 @@
+package com.dispenser.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class FilaInventarioDTO {
+    private Long idProducto;
+    private Integer stockActual;
+    // Opcional: si no viene se conserva el actual (o el valor por defecto al crear)
+    private Integer stockMinimo;
+}
@@ -0,0 +1,18 @@
+package com.dispenser.inventory_service.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class ImportacionResultadoDTO {
+    private int filasLeidas;
+    private int insertadas;
+    private int actualizadas;
+    private int filasConError;
+    // Solo los primeros inventario.importacion.max-errores; filasConError lleva el total
+    private List<ErrorFilaDTO> errores = new ArrayList<>();
+}
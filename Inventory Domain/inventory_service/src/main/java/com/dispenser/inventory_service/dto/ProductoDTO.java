@@ -3,11 +3,13 @@ package com.dispenser.inventory_service.dto;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.math.BigDecimal;
+
 @Getter
 @Setter
 public class ProductoDTO {
     private Long idProducto;
     private String nombre;
-    private String precio;
+    private BigDecimal precio;
     private Integer stock;
 }
\ No newline at end of file
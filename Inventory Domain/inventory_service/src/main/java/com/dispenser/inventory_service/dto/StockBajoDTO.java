@@ -0,0 +1,20 @@
+package com.dispenser.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockBajoDTO {
+    private Long idProducto;
+    private Integer stockActual;
+    private Integer stockMinimo;
+    // Momento en que el producto quedó por debajo del mínimo (desde el arranque, como mucho)
+    private LocalDateTime desde;
+}
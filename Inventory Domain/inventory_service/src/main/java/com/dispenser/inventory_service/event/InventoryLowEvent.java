@@ -0,0 +1,21 @@
+package com.dispenser.inventory_service.event;
+
+public class InventoryLowEvent {
+    private Long productId;
+    private Integer stock;
+    private Integer minimumStock;
+
+    public InventoryLowEvent() {}
+    public InventoryLowEvent(Long productId, Integer stock, Integer minimumStock) {
+        this.productId = productId;
+        this.stock = stock;
+        this.minimumStock = minimumStock;
+    }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public Integer getStock() { return stock; }
+    public void setStock(Integer stock) { this.stock = stock; }
+    public Integer getMinimumStock() { return minimumStock; }
+    public void setMinimumStock(Integer minimumStock) { this.minimumStock = minimumStock; }
+}
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "inventario")
+@Table(name = "inventario", indexes = {
+        @Index(name = "uk_inventario_producto", columnList = "id_producto", unique = true)
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -23,4 +25,10 @@ public class Inventario {
 
     @Column(name = "stock_minimo")
     private Integer stockMinimo;
-}
\ No newline at end of file
+
+    // Última versión de stock.movement aplicada; los eventos con versión menor o igual se descartan.
+    // Solo la escriben las sentencias SQL de InventarioService, nunca un save() de la entidad
+    @Column(name = "version_stock", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "bigint not null default 0")
+    private Long versionStock = 0L;
+}
@@ -3,5 +3,14 @@ package com.dispenser.inventory_service.repository;
 import com.dispenser.inventory_service.model.Inventario;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 public interface InventarioRepository extends JpaRepository<Inventario, Long> {
+
+    // Ambas usan el índice único uk_inventario_producto
+    Optional<Inventario> findByIdProducto(Long idProducto);
+
+    List<Inventario> findByIdProductoIn(Collection<Long> idsProducto);
 }
\ No newline at end of file
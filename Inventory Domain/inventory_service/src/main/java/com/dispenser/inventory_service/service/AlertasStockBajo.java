@@ -0,0 +1,204 @@
+package com.dispenser.inventory_service.service;
+
+import com.dispenser.inventory_service.config.RabbitMQConfig;
+import com.dispenser.inventory_service.dto.StockBajoDTO;
+import com.dispenser.inventory_service.event.InventoryLowEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Índice en memoria de los productos con stock_actual por debajo de stock_minimo.
+ * Se carga una vez al arrancar y luego se mantiene con cada cambio de stock, sin
+ * recorrer la tabla. Cuando un producto entra bajo el mínimo se publica inventory.low;
+ * mientras siga por debajo no se repite, y si oscila alrededor del umbral se publica
+ * como mucho una vez cada inventario.alertas.intervalo-minimo.
+ *
+ * Las cifras se releen de la tabla después del commit, no se toman del llamador: dos
+ * transacciones sobre el mismo producto pueden terminar sus afterCommit en cualquier
+ * orden, y la relectura (serializada por producto) hace que el último en aplicar vea el
+ * último estado. Las relecturas de productos distintos no se esperan entre sí.
+ */
+@Component
+public class AlertasStockBajo {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertasStockBajo.class);
+
+    private static final int FRANJAS = 64;
+
+    private static final String BAJO_MINIMO_SQL =
+            "SELECT id_producto, stock_actual, stock_minimo FROM inventario WHERE stock_actual < stock_minimo";
+    private static final String CONSULTAR_UMBRALES_SQL =
+            "SELECT id_producto, stock_actual, stock_minimo FROM inventario WHERE id_producto IN (%s)";
+
+    private final Map<Long, StockBajoDTO> bajoMinimo = new ConcurrentHashMap<>();
+    private final Map<Long, Instant> ultimaAlerta = new ConcurrentHashMap<>();
+    // Bloqueos por franja de productos: relectura y aplicación de un mismo producto van en serie
+    private final ReentrantLock[] franjas = new ReentrantLock[FRANJAS];
+    private final AtomicReference<Instant> proximaPurga = new AtomicReference<>(Instant.now());
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Value("${inventario.alertas.intervalo-minimo:15m}")
+    private Duration intervaloMinimo;
+
+    public AlertasStockBajo() {
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+    }
+
+    // Los productos que ya estaban bajo mínimo no generan alerta al arrancar
+    @PostConstruct
+    void cargar() {
+        LocalDateTime ahora = LocalDateTime.now();
+        jdbcTemplate.query(BAJO_MINIMO_SQL, rs -> {
+            long idProducto = rs.getLong("id_producto");
+            bajoMinimo.put(idProducto, new StockBajoDTO(idProducto, rs.getInt("stock_actual"), rs.getInt("stock_minimo"), ahora));
+        });
+        logger.info("{} productos bajo el stock mínimo al arrancar", bajoMinimo.size());
+    }
+
+    // Dentro de una transacción se evalúa tras el commit, para no alertar de cambios revertidos
+    public void evaluar(Collection<Long> idsProducto) {
+        if (idsProducto.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(idsProducto));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    releer(ids);
+                }
+            });
+        } else {
+            releer(ids);
+        }
+    }
+
+    public void quitar(Long idProducto) {
+        bajoMinimo.remove(idProducto);
+    }
+
+    public List<StockBajoDTO> listar() {
+        return bajoMinimo.values().stream()
+                .sorted(Comparator.comparing(StockBajoDTO::getIdProducto))
+                .toList();
+    }
+
+    // Una consulta por lote; lectura y aplicación van juntas para que una lectura vieja no se aplique la última.
+    // Las franjas del lote se toman en orden creciente para que dos lotes no se bloqueen mutuamente
+    private void releer(List<Long> idsProducto) {
+        String marcadores = String.join(",", Collections.nCopies(idsProducto.size(), "?"));
+        int[] bloqueadas = idsProducto.stream().mapToInt(this::franja).distinct().sorted().toArray();
+        for (int franja : bloqueadas) {
+            franjas[franja].lock();
+        }
+        try {
+            Set<Long> pendientes = new HashSet<>(idsProducto);
+            jdbcTemplate.query(String.format(CONSULTAR_UMBRALES_SQL, marcadores), rs -> {
+                long idProducto = rs.getLong("id_producto");
+                pendientes.remove(idProducto);
+                aplicar(idProducto, (Integer) rs.getObject("stock_actual"), (Integer) rs.getObject("stock_minimo"));
+            }, idsProducto.toArray());
+            // Filas borradas entretanto
+            pendientes.forEach(bajoMinimo::remove);
+        } catch (DataAccessException e) {
+            // El índice se corrige con el próximo cambio de esos productos
+            logger.warn("No se pudo reevaluar el stock mínimo de los productos {}", idsProducto, e);
+        } finally {
+            for (int i = bloqueadas.length - 1; i >= 0; i--) {
+                franjas[bloqueadas[i]].unlock();
+            }
+        }
+        purgarAlertasVencidas();
+    }
+
+    private int franja(Long idProducto) {
+        return Math.floorMod(Long.hashCode(idProducto), FRANJAS);
+    }
+
+    // Una alerta más antigua que el intervalo ya no frena la siguiente, así que se descarta.
+    // Se purga como mucho una vez por intervalo, desde el hilo que la encuentre vencida
+    private void purgarAlertasVencidas() {
+        Instant ahora = Instant.now();
+        Instant prevista = proximaPurga.get();
+        if (ahora.isBefore(prevista) || !proximaPurga.compareAndSet(prevista, ahora.plus(intervaloMinimo))) {
+            return;
+        }
+        Instant limite = ahora.minus(intervaloMinimo);
+        // remove(clave, valor): si entretanto se registró otra alerta del producto, esa se conserva
+        ultimaAlerta.forEach((idProducto, previa) -> {
+            if (!previa.isAfter(limite)) {
+                ultimaAlerta.remove(idProducto, previa);
+            }
+        });
+    }
+
+    private void aplicar(Long idProducto, Integer stockActual, Integer stockMinimo) {
+        if (stockActual == null || stockMinimo == null || stockActual >= stockMinimo) {
+            bajoMinimo.remove(idProducto);
+            return;
+        }
+        StockBajoDTO anterior = bajoMinimo.putIfAbsent(idProducto,
+                new StockBajoDTO(idProducto, stockActual, stockMinimo, LocalDateTime.now()));
+        if (anterior != null) {
+            // Ya estaba bajo mínimo: solo se actualizan las cifras
+            bajoMinimo.put(idProducto, new StockBajoDTO(idProducto, stockActual, stockMinimo, anterior.getDesde()));
+            return;
+        }
+        if (permitirAlerta(idProducto)) {
+            publicar(new InventoryLowEvent(idProducto, stockActual, stockMinimo));
+        }
+    }
+
+    private boolean permitirAlerta(Long idProducto) {
+        Instant ahora = Instant.now();
+        Instant previa = ultimaAlerta.get(idProducto);
+        if (previa != null && previa.plus(intervaloMinimo).isAfter(ahora)) {
+            return false;
+        }
+        // Si la purga la quitó entretanto, la alerta vencida cuenta como ausente
+        return previa != null && ultimaAlerta.replace(idProducto, previa, ahora)
+                || ultimaAlerta.putIfAbsent(idProducto, ahora) == null;
+    }
+
+    private void publicar(InventoryLowEvent evento) {
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.INVENTORY_EVENTS_EXCHANGE, RabbitMQConfig.INVENTORY_LOW_ROUTING_KEY, evento);
+            logger.info("inventory.low publicado para el producto {} (stock {}, mínimo {})",
+                    evento.getProductId(), evento.getStock(), evento.getMinimumStock());
+        } catch (AmqpException e) {
+            logger.warn("No se pudo publicar inventory.low para el producto {}", evento.getProductId(), e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.dispenser.inventory_service.service;
+
+import com.dispenser.inventory_service.dto.ErrorFilaDTO;
+import com.dispenser.inventory_service.dto.FilaInventarioDTO;
+import com.dispenser.inventory_service.dto.ImportacionResultadoDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Importación masiva de inventario en CSV (idProducto,stockActual,stockMinimo) o NDJSON.
+ * El cuerpo se lee línea a línea, sin cargarlo entero en memoria, y se aplica en lotes
+ * de inventario.importacion.lote filas, cada uno en su propia transacción: un lote que
+ * falla no deshace los anteriores. Las filas inválidas se informan con su número de
+ * línea y no detienen la importación.
+ *
+ * El stock de cada producto lo mantiene PRODUCT-SERVICE, así que stockActual se envía allí
+ * (PUT /api/productos/stock, que sube stock_version) y vuelve a esta tabla como
+ * stock.movement; aquí solo se guarda stockMinimo. Escribirlo solo en la proyección lo
+ * perdería con el siguiente movimiento del producto. Los productos que PRODUCT-SERVICE no
+ * conoce se informan como error.
+ */
+@Component
+public class ImportacionInventario {
+
+    public enum Formato { CSV, NDJSON }
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    private static final String PRODUCTO_SERVICE_URL = "http://PRODUCT-SERVICE/api/productos/";
+
+    @Value("${inventario.importacion.lote:1000}")
+    private int tamanoLote;
+
+    @Value("${inventario.importacion.max-errores:1000}")
+    private int maxErrores;
+
+    public ImportacionResultadoDTO importar(InputStream cuerpo, Formato formato) throws IOException {
+        ImportacionResultadoDTO resultado = new ImportacionResultadoDTO();
+        // Por producto y en orden de ID; si un producto se repite en el lote prevalece la última fila
+        Map<Long, FilaInventarioDTO> lote = new TreeMap<>();
+        int primeraLinea = 0;
+        int numero = 0;
+
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(cuerpo, StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                numero++;
+                if (linea.isBlank() || (formato == Formato.CSV && numero == 1 && esCabecera(linea))) {
+                    continue;
+                }
+                resultado.setFilasLeidas(resultado.getFilasLeidas() + 1);
+                try {
+                    FilaInventarioDTO fila = formato == Formato.CSV
+                            ? leerCsv(linea)
+                            : objectMapper.readValue(linea, FilaInventarioDTO.class);
+                    validar(fila);
+                    if (lote.isEmpty()) {
+                        primeraLinea = numero;
+                    }
+                    lote.put(fila.getIdProducto(), fila);
+                } catch (IllegalArgumentException | JsonProcessingException e) {
+                    agregarError(resultado, numero, e.getMessage(), 1);
+                }
+                if (lote.size() >= tamanoLote) {
+                    aplicar(lote, resultado, primeraLinea, numero);
+                }
+            }
+        }
+        if (!lote.isEmpty()) {
+            aplicar(lote, resultado, primeraLinea, numero);
+        }
+        return resultado;
+    }
+
+    private void aplicar(Map<Long, FilaInventarioDTO> lote, ImportacionResultadoDTO resultado, int desde, int hasta) {
+        try {
+            Set<Long> fijados = fijarStock(lote);
+            List<Long> desconocidos = lote.keySet().stream().filter(id -> !fijados.contains(id)).toList();
+            if (!desconocidos.isEmpty()) {
+                agregarError(resultado, desde, "Productos inexistentes en las líneas " + desde + "-" + hasta + ": "
+                        + desconocidos, desconocidos.size());
+                lote.keySet().removeAll(desconocidos);
+            }
+        } catch (RestClientException e) {
+            agregarError(resultado, desde, "Lote de las líneas " + desde + "-" + hasta + " no aplicado: "
+                    + e.getMessage(), lote.size());
+            lote.clear();
+            return;
+        }
+        try {
+            if (!lote.isEmpty()) {
+                int insertadas = inventarioService.importarLote(new ArrayList<>(lote.values()));
+                resultado.setInsertadas(resultado.getInsertadas() + insertadas);
+                resultado.setActualizadas(resultado.getActualizadas() + lote.size() - insertadas);
+            }
+        } catch (DataAccessException e) {
+            // El stock ya está fijado en PRODUCT-SERVICE y llegará por stock.movement
+            agregarError(resultado, desde, "Lote de las líneas " + desde + "-" + hasta + ": stock aplicado, stock mínimo no guardado: "
+                    + e.getMostSpecificCause().getMessage(), lote.size());
+        }
+        lote.clear();
+    }
+
+    // Una llamada por lote; devuelve los productos que PRODUCT-SERVICE actualizó
+    private Set<Long> fijarStock(Map<Long, FilaInventarioDTO> lote) {
+        Map<Long, Integer> stocks = new TreeMap<>();
+        lote.forEach((idProducto, fila) -> stocks.put(idProducto, fila.getStockActual()));
+        Long[] fijados = restTemplate.exchange(PRODUCTO_SERVICE_URL + "stock", HttpMethod.PUT,
+                new HttpEntity<>(stocks), Long[].class).getBody();
+        return fijados != null ? new HashSet<>(Arrays.asList(fijados)) : Set.of();
+    }
+
+    private boolean esCabecera(String linea) {
+        return !Character.isDigit(linea.strip().charAt(0));
+    }
+
+    private FilaInventarioDTO leerCsv(String linea) {
+        String[] campos = linea.split(",", -1);
+        if (campos.length < 2 || campos.length > 3) {
+            throw new IllegalArgumentException("Se esperaban 2 o 3 columnas y hay " + campos.length);
+        }
+        return new FilaInventarioDTO(
+                Long.valueOf(numero(campos[0], "idProducto")),
+                Integer.valueOf(numero(campos[1], "stockActual")),
+                campos.length == 3 && !campos[2].isBlank() ? Integer.valueOf(numero(campos[2], "stockMinimo")) : null);
+    }
+
+    private String numero(String campo, String nombre) {
+        String valor = campo.strip();
+        if (valor.isEmpty() || !valor.chars().allMatch(Character::isDigit)) {
+            throw new IllegalArgumentException(nombre + " no es un número válido: '" + valor + "'");
+        }
+        return valor;
+    }
+
+    private void validar(FilaInventarioDTO fila) {
+        if (fila == null || fila.getIdProducto() == null || fila.getStockActual() == null) {
+            throw new IllegalArgumentException("idProducto y stockActual son obligatorios");
+        }
+        if (fila.getStockActual() < 0 || (fila.getStockMinimo() != null && fila.getStockMinimo() < 0)) {
+            throw new IllegalArgumentException("El stock no puede ser negativo");
+        }
+    }
+
+    private void agregarError(ImportacionResultadoDTO resultado, int linea, String mensaje, int filas) {
+        resultado.setFilasConError(resultado.getFilasConError() + filas);
+        if (resultado.getErrores().size() < maxErrores) {
+            resultado.getErrores().add(new ErrorFilaDTO(linea, mensaje));
+        }
+    }
+}
@@ -1,29 +1,161 @@
 package com.dispenser.inventory_service.service;
 
+import com.dispenser.inventory_service.dto.FilaInventarioDTO;
+import com.dispenser.inventory_service.dto.StockBajoDTO;
+import com.dispenser.inventory_service.event.StockMovementEvent;
 import com.dispenser.inventory_service.model.Inventario;
 import com.dispenser.inventory_service.repository.InventarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 public class InventarioService {
     @Autowired
     private InventarioRepository inventarioRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AlertasStockBajo alertasStockBajo;
+
+    private static final int STOCK_MINIMO_POR_DEFECTO = 5;
+
+    // Solo avanza: una versión repetida o anterior a la aplicada no cambia la fila
+    private static final String APLICAR_MOVIMIENTO_SQL =
+            "UPDATE inventario SET stock_actual = ?, version_stock = ? WHERE id_producto = ? AND version_stock < ?";
+    // La importación no escribe stock_actual en filas existentes: ese valor llega por stock.movement
+    private static final String IMPORTAR_ACTUALIZAR_SQL =
+            "UPDATE inventario SET stock_minimo = COALESCE(?, stock_minimo) WHERE id_producto = ?";
+    // Una fila nueva parte del stock importado con versión 0, así que el stock.movement del cambio la sustituye.
+    // Si otra petición creó la fila entre el UPDATE y el INSERT, solo se aplica el stock mínimo recibido
+    private static final String IMPORTAR_INSERTAR_SQL =
+            "INSERT INTO inventario (id_producto, stock_actual, stock_minimo, version_stock) VALUES (?, ?, ?, 0) "
+                    + "ON CONFLICT (id_producto) DO UPDATE SET stock_minimo = COALESCE(?, inventario.stock_minimo)";
+    // Un product.created reentregado no duplica la fila ni pisa el stock ya mantenido por stock.movement
+    private static final String CREAR_INVENTARIO_SQL =
+            "INSERT INTO inventario (id_producto, stock_actual, stock_minimo, version_stock) VALUES (?, ?, ?, 0) "
+                    + "ON CONFLICT (id_producto) DO NOTHING";
+    // Solo toca las columnas recibidas; stock_actual y version_stock que hayan llegado por stock.movement no se pisan
+    private static final String ACTUALIZAR_SQL =
+            "UPDATE inventario SET stock_actual = COALESCE(?, stock_actual), stock_minimo = COALESCE(?, stock_minimo) "
+                    + "WHERE id_inventario = ?";
+
+    // Crea la fila del producto o, si ya existe, devuelve la existente sin modificarla
     public Inventario crearInventarioParaProducto(Long idProducto, Integer stockInicial) {
-        Inventario inventario = new Inventario();
-        inventario.setIdProducto(idProducto);
-        inventario.setStockActual(stockInicial != null ? stockInicial : 0);
-        inventario.setStockMinimo(5); // Valor por defecto
-        return inventarioRepository.save(inventario);
+        int creadas = jdbcTemplate.update(CREAR_INVENTARIO_SQL,
+                idProducto, stockInicial != null ? stockInicial : 0, STOCK_MINIMO_POR_DEFECTO);
+        Inventario inventario = obtenerInventarioPorProducto(idProducto);
+        if (creadas > 0) {
+            alertasStockBajo.evaluar(List.of(idProducto));
+        }
+        return inventario;
+    }
+
+    // Aplica un lote de stock.movement en una transacción y un lote JDBC. De cada producto solo
+    // cuenta la versión más alta del lote; devuelve cuántas filas cambiaron.
+    @Transactional
+    public int aplicarMovimientos(List<StockMovementEvent> eventos) {
+        // TreeMap: las filas se bloquean siempre en orden de producto
+        Map<Long, StockMovementEvent> ultimos = new TreeMap<>();
+        for (StockMovementEvent evento : eventos) {
+            if (evento.getProductId() != null && evento.getStock() != null && evento.getVersion() != null) {
+                ultimos.merge(evento.getProductId(), evento,
+                        (actual, nuevo) -> nuevo.getVersion() > actual.getVersion() ? nuevo : actual);
+            }
+        }
+        if (ultimos.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> parametros = new ArrayList<>(ultimos.size());
+        for (StockMovementEvent evento : ultimos.values()) {
+            parametros.add(new Object[]{evento.getStock(), evento.getVersion(), evento.getProductId(), evento.getVersion()});
+        }
+        int[] filas = jdbcTemplate.batchUpdate(APLICAR_MOVIMIENTO_SQL, parametros);
+
+        // Solo se reevalúa el umbral de los productos que cambiaron
+        List<Long> cambiados = new ArrayList<>();
+        int i = 0;
+        for (Long idProducto : ultimos.keySet()) {
+            if (filas[i++] > 0) {
+                cambiados.add(idProducto);
+            }
+        }
+        alertasStockBajo.evaluar(cambiados);
+        return cambiados.size();
+    }
+
+    // Un lote de la importación masiva, con el stock ya fijado en PRODUCT-SERVICE: un UPDATE de stock_minimo
+    // por fila en lote JDBC y, para los productos sin inventario, un INSERT en lote. Las filas deben venir
+    // ordenadas por producto. Devuelve las insertadas.
+    @Transactional
+    public int importarLote(List<FilaInventarioDTO> filas) {
+        List<Object[]> actualizaciones = new ArrayList<>(filas.size());
+        for (FilaInventarioDTO fila : filas) {
+            actualizaciones.add(new Object[]{fila.getStockMinimo(), fila.getIdProducto()});
+        }
+        int[] actualizadas = jdbcTemplate.batchUpdate(IMPORTAR_ACTUALIZAR_SQL, actualizaciones);
+
+        List<Object[]> altas = new ArrayList<>();
+        for (int i = 0; i < filas.size(); i++) {
+            if (actualizadas[i] == 0) {
+                FilaInventarioDTO fila = filas.get(i);
+                altas.add(new Object[]{fila.getIdProducto(), fila.getStockActual(),
+                        fila.getStockMinimo() != null ? fila.getStockMinimo() : STOCK_MINIMO_POR_DEFECTO, fila.getStockMinimo()});
+            }
+        }
+        if (!altas.isEmpty()) {
+            jdbcTemplate.batchUpdate(IMPORTAR_INSERTAR_SQL, altas);
+        }
+        alertasStockBajo.evaluar(filas.stream().map(FilaInventarioDTO::getIdProducto).toList());
+        return altas.size();
+    }
+
+    public Inventario obtenerInventarioPorProducto(Long idProducto) {
+        return inventarioRepository.findByIdProducto(idProducto)
+                .orElseThrow(() -> new RuntimeException("Inventario no encontrado para el producto ID: " + idProducto));
+    }
+
+    // Una sola consulta para todos los productos pedidos; los que no tienen inventario se omiten
+    public List<Inventario> obtenerInventariosPorProductos(List<Long> idsProducto) {
+        if (idsProducto == null || idsProducto.isEmpty()) {
+            return List.of();
+        }
+        return inventarioRepository.findByIdProductoIn(new LinkedHashSet<>(idsProducto));
     }
 
+    // UPDATE condicional por columnas en vez de save() de la entidad leída, que devolvería la fila a
+    // ese estado si entre la lectura y la escritura se aplicó un stock.movement
+    @Transactional
     public Inventario actualizarInventario(Long idInventario, Integer stockActual, Integer stockMinimo) {
-        Inventario inventario = inventarioRepository.findById(idInventario)
-                .orElseThrow(() -> new RuntimeException("Inventario no encontrado con ID: " + idInventario));
-        if (stockActual != null) inventario.setStockActual(stockActual);
-        if (stockMinimo != null) inventario.setStockMinimo(stockMinimo);
-        return inventarioRepository.save(inventario);
+        if (jdbcTemplate.update(ACTUALIZAR_SQL, stockActual, stockMinimo, idInventario) == 0) {
+            throw new RuntimeException("Inventario no encontrado con ID: " + idInventario);
+        }
+        Inventario guardado = obtenerInventarioPorId(idInventario);
+        alertasStockBajo.evaluar(List.of(guardado.getIdProducto()));
+        return guardado;
+    }
+
+    public boolean eliminarInventario(Long idInventario) {
+        Inventario inventario = inventarioRepository.findById(idInventario).orElse(null);
+        if (inventario == null) {
+            return false;
+        }
+        inventarioRepository.delete(inventario);
+        alertasStockBajo.quitar(inventario.getIdProducto());
+        return true;
+    }
+
+    public List<StockBajoDTO> obtenerBajoMinimo() {
+        return alertasStockBajo.listar();
     }
 
     public Inventario obtenerInventarioPorId(Long idInventario) {
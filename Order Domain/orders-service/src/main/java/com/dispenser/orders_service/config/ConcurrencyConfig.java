@@ -0,0 +1,17 @@
+package com.dispenser.orders_service.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ConcurrencyConfig {
+
+    // Hilos virtuales para las consultas REST bloqueantes a otros servicios
+    @Bean(destroyMethod = "close")
+    public ExecutorService lookupExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
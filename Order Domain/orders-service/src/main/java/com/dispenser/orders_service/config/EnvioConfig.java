@@ -0,0 +1,29 @@
+package com.dispenser.orders_service.config;
+
+import com.dispenser.commons.envio.TarifasEnvio;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+public class EnvioConfig {
+
+    // Motor de tarifas de dispenser-commons, el mismo que usa COBRO-SERVICE; las tablas por defecto vienen en ese módulo
+    @Bean
+    public TarifasEnvio tarifasEnvio(@Value("${envio.zonas:classpath:envio/zonas.csv}") Resource zonas,
+                                     @Value("${envio.tarifas:classpath:envio/tarifas.csv}") Resource tarifas,
+                                     @Value("${envio.zona-por-defecto:nacional}") String zonaPorDefecto,
+                                     @Value("${envio.peso-unidad-kg:1.0}") double pesoUnidadKg,
+                                     @Value("${envio.costo-kg-adicional:1.5}") double costoKgAdicional) throws IOException {
+        try (Reader lectorZonas = new InputStreamReader(zonas.getInputStream(), StandardCharsets.UTF_8);
+             Reader lectorTarifas = new InputStreamReader(tarifas.getInputStream(), StandardCharsets.UTF_8)) {
+            return new TarifasEnvio(lectorZonas, lectorTarifas, zonaPorDefecto, pesoUnidadKg, costoKgAdicional);
+        }
+    }
+}
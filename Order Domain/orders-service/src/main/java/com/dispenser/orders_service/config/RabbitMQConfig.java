@@ -1,19 +1,17 @@
 package com.dispenser.orders_service.config;
 
+import com.dispenser.commons.amqp.EventoMessageConverter;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class RabbitMQConfig {
 
-    public static final String ORDER_CREATED_EXCHANGE = "order.created.exchange";
+    // Cada consumidor (dispatch, product, inventory) enlaza su propia cola
+    public static final String ORDER_EVENTS_EXCHANGE = "order.events.exchange";
     public static final String ORDER_CREATED_ROUTING_KEY = "order.created";
-    public static final String ORDER_CREATED_QUEUE = "order.created.queue";
-
-    public static final String ORDER_PRODUCTS_EXCHANGE = "order.products.exchange";
-    public static final String ORDER_PRODUCTS_ROUTING_KEY = "order.products";
-    public static final String ORDER_PRODUCTS_QUEUE = "order.products.queue";
 
     public static final String COBRO_COMPLETED_EXCHANGE = "cobro.completed.exchange";
     public static final String COBRO_COMPLETED_ROUTING_KEY = "cobro.completed";
@@ -23,40 +21,17 @@ public class RabbitMQConfig {
     public static final String ORDER_UPDATE_ROUTING_KEY = "order.update";
     public static final String ORDER_UPDATE_QUEUE = "order.update.queue";
 
-    @Bean
-    public DirectExchange orderCreatedExchange() {
-        return new DirectExchange(ORDER_CREATED_EXCHANGE);
-    }
-
-    @Bean
-    public Queue orderCreatedQueue() {
-        return QueueBuilder.durable(ORDER_CREATED_QUEUE).build();
-    }
-
-    @Bean
-    public Binding orderCreatedBinding(Queue orderCreatedQueue, DirectExchange orderCreatedExchange) {
-        return BindingBuilder
-                .bind(orderCreatedQueue)
-                .to(orderCreatedExchange)
-                .with(ORDER_CREATED_ROUTING_KEY);
-    }
-
-    @Bean
-    public DirectExchange orderProductsExchange() {
-        return new DirectExchange(ORDER_PRODUCTS_EXCHANGE);
-    }
+    public static final String CLIENTE_UPDATED_EXCHANGE = "cliente.updated.exchange";
+    public static final String CLIENTE_UPDATED_ROUTING_KEY = "cliente.updated";
 
     @Bean
-    public Queue orderProductsQueue() {
-        return QueueBuilder.durable(ORDER_PRODUCTS_QUEUE).build();
+    public MessageConverter eventoMessageConverter() {
+        return new EventoMessageConverter();
     }
 
     @Bean
-    public Binding orderProductsBinding(Queue orderProductsQueue, DirectExchange orderProductsExchange) {
-        return BindingBuilder
-                .bind(orderProductsQueue)
-                .to(orderProductsExchange)
-                .with(ORDER_PRODUCTS_ROUTING_KEY);
+    public TopicExchange orderEventsExchange() {
+        return new TopicExchange(ORDER_EVENTS_EXCHANGE);
     }
 
     @Bean
@@ -94,4 +69,23 @@ public class RabbitMQConfig {
                 .to(orderUpdateExchange)
                 .with(ORDER_UPDATE_ROUTING_KEY);
     }
+
+    @Bean
+    public TopicExchange clienteUpdatedExchange() {
+        return new TopicExchange(CLIENTE_UPDATED_EXCHANGE);
+    }
+
+    // Cola exclusiva por réplica: cada instancia invalida su propia caché de clientes
+    @Bean
+    public Queue clienteUpdatedQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding clienteUpdatedBinding(Queue clienteUpdatedQueue, TopicExchange clienteUpdatedExchange) {
+        return BindingBuilder
+                .bind(clienteUpdatedQueue)
+                .to(clienteUpdatedExchange)
+                .with(CLIENTE_UPDATED_ROUTING_KEY);
+    }
 }
\ No newline at end of file
@@ -1,9 +1,16 @@
 package com.dispenser.orders_service.controller;
 
+import com.dispenser.orders_service.dto.OrdenCursorDTO;
 import com.dispenser.orders_service.model.Orden;
 import com.dispenser.orders_service.service.OrdenService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -23,6 +30,20 @@ public class OrdenController {
         return ordenService.obtenerTodasLasOrdenes();
     }
 
+    @GetMapping("/cursor")
+    public OrdenCursorDTO obtenerOrdenesPorCursor(@RequestParam(defaultValue = "0") Long despuesDe,
+                                                  @RequestParam(defaultValue = "100") int limite) {
+        return ordenService.obtenerOrdenesDesde(despuesDe, limite);
+    }
+
+    @GetMapping(value = "/exportar", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarOrdenes() {
+        StreamingResponseBody body = salida -> ordenService.exportarOrdenes(salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public Orden obtenerOrdenPorId(@PathVariable Long id) {
         return ordenService.obtenerOrdenPorId(id);
@@ -44,8 +65,9 @@ public class OrdenController {
     }
 
     @GetMapping("/estado/{estado}")
-    public List<Orden> obtenerOrdenesPorEstado(@PathVariable String estado) {
-        return ordenService.obtenerOrdenesPorEstado(estado);
+    public Page<Orden> obtenerOrdenesPorEstado(@PathVariable String estado,
+                                              @PageableDefault(size = 50, sort = "idOrden") Pageable pageable) {
+        return ordenService.obtenerOrdenesPorEstado(estado, pageable);
     }
 
     @GetMapping("/cliente/{idCliente}/count")
@@ -0,0 +1,12 @@
+package com.dispenser.orders_service.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Stock de un producto según INVENTORY-SERVICE (mantenido por stock.movement)
+@Getter
+@Setter
+public class InventarioDTO {
+    private Long idProducto;
+    private Integer stockActual;
+}
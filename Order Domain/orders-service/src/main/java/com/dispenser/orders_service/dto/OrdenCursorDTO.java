@@ -0,0 +1,16 @@
+package com.dispenser.orders_service.dto;
+
+import com.dispenser.orders_service.model.Orden;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class OrdenCursorDTO {
+    private List<Orden> ordenes;
+    private Long siguienteCursor; // null cuando no quedan más órdenes
+}
@@ -0,0 +1,14 @@
+package com.dispenser.orders_service.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class ReservaDTO {
+    private Long idReserva;
+    private String estado;
+    private LocalDateTime expiraEn;
+}
@@ -0,0 +1,13 @@
+package com.dispenser.orders_service.event;
+
+public class ClienteUpdatedEvent {
+    private Long clientId;
+
+    public ClienteUpdatedEvent() {}
+    public ClienteUpdatedEvent(Long clientId) {
+        this.clientId = clientId;
+    }
+
+    public Long getClientId() { return clientId; }
+    public void setClientId(Long clientId) { this.clientId = clientId; }
+}
@@ -0,0 +1,26 @@
+package com.dispenser.orders_service.event;
+
+// Orden pagada y lista para enviar (cobro.completed)
+public class CobroCompletedEvent {
+    private Long orderId;
+    private String deliveryAddress;
+    private Double shippingTotal;
+    private Double totalAmount;
+
+    public CobroCompletedEvent() {}
+    public CobroCompletedEvent(Long orderId, String deliveryAddress, Double shippingTotal, Double totalAmount) {
+        this.orderId = orderId;
+        this.deliveryAddress = deliveryAddress;
+        this.shippingTotal = shippingTotal;
+        this.totalAmount = totalAmount;
+    }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public String getDeliveryAddress() { return deliveryAddress; }
+    public void setDeliveryAddress(String deliveryAddress) { this.deliveryAddress = deliveryAddress; }
+    public Double getShippingTotal() { return shippingTotal; }
+    public void setShippingTotal(Double shippingTotal) { this.shippingTotal = shippingTotal; }
+    public Double getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(Double totalAmount) { this.totalAmount = totalAmount; }
+}
@@ -0,0 +1,17 @@
+package com.dispenser.orders_service.event;
+
+public class OrderItem {
+    private Long itemId;
+    private Integer quantity;
+
+    public OrderItem() {}
+    public OrderItem(Long itemId, Integer quantity) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+    }
+
+    public Long getItemId() { return itemId; }
+    public void setItemId(Long itemId) { this.itemId = itemId; }
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
@@ -0,0 +1,18 @@
+package com.dispenser.orders_service.event;
+
+// Cambio de estado de una orden publicado por cobro y envíos (order.update)
+public class OrderStatusChangedEvent {
+    private Long orderId;
+    private String status;
+
+    public OrderStatusChangedEvent() {}
+    public OrderStatusChangedEvent(Long orderId, String status) {
+        this.orderId = orderId;
+        this.status = status;
+    }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
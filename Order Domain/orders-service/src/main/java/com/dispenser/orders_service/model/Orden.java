@@ -2,16 +2,21 @@ package com.dispenser.orders_service.model;
 
 import com.dispenser.orders_service.dto.ClienteDTO;
 import com.dispenser.orders_service.dto.OrdenProductoDTO;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
 @Entity
-@Table(name = "orden")
+@Table(name = "orden", indexes = {
+        @Index(name = "idx_orden_estado_normalizado", columnList = "estado_normalizado, id_orden")
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -25,6 +30,11 @@ public class Orden {
     private String fecha;
     private String estado;
 
+    // Estado en minúsculas y sin espacios, para filtrar por índice sin distinguir mayúsculas
+    @Column(name = "estado_normalizado")
+    @JsonIgnore
+    private String estadoNormalizado;
+
     @Column(name = "id_cliente")
     private Long idCliente;
 
@@ -34,7 +44,9 @@ public class Orden {
     @Transient
     private Set<OrdenProductoDTO> productos = new HashSet<>();
 
+    // Las consultas paginadas no pueden hacer join de la colección; se cargan en lotes de hasta 100 órdenes
     @OneToMany(mappedBy = "orden", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     @JsonManagedReference
     private Set<OrdenProducto> orderProducts = new HashSet<>();
 
@@ -78,6 +90,16 @@ public class Orden {
         orderProducts.removeIf(op -> op != null && op.getIdProducto() != null && op.getIdProducto().equals(productoId));
     }
 
+    @PrePersist
+    @PreUpdate
+    void actualizarEstadoNormalizado() {
+        this.estadoNormalizado = normalizarEstado(estado);
+    }
+
+    public static String normalizarEstado(String estado) {
+        return estado != null ? estado.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
     public void updateProductIds() {
         // No necesario con la relación establecida
     }
@@ -0,0 +1,36 @@
+package com.dispenser.orders_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Evento pendiente de publicar en RabbitMQ; se guarda en la misma transacción que la orden
+@Entity
+@Table(name = "outbox_evento")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxEvento {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_evento")
+    private Long idEvento;
+
+    @Column(name = "exchange", nullable = false)
+    private String exchange;
+
+    @Column(name = "routing_key", nullable = false)
+    private String routingKey;
+
+    // Tipo del evento y cuerpo ya serializado por EventoMessageConverter
+    @Column(name = "tipo", nullable = false)
+    private String tipo;
+
+    @Column(name = "payload", nullable = false)
+    private byte[] payload;
+
+    @Column(name = "creado_en", nullable = false)
+    private LocalDateTime creadoEn;
+}
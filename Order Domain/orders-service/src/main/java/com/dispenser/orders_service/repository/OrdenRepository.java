@@ -1,12 +1,55 @@
 package com.dispenser.orders_service.repository;
 
 import com.dispenser.orders_service.model.Orden;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface OrdenRepository extends JpaRepository<Orden, Long> {
+    // Las líneas se cargan con un join en la misma consulta que las órdenes
+    @Override
+    @EntityGraph(attributePaths = "orderProducts")
+    List<Orden> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "orderProducts")
+    Optional<Orden> findById(Long idOrden);
+
+    @EntityGraph(attributePaths = "orderProducts")
     List<Orden> findByIdCliente(Long idCliente);
 
     long countByIdCliente(Long idCliente);
+
+    Page<Orden> findByEstadoNormalizado(String estadoNormalizado, Pageable pageable);
+
+    // Paginación por cursor: usa la clave primaria, el coste no crece con la profundidad de la página
+    List<Orden> findByIdOrdenGreaterThanOrderByIdOrdenAsc(Long idOrden, Limit limit);
+
+    // Recorre la tabla con un cursor de base de datos; debe consumirse dentro de una transacción.
+    // Solo las órdenes: con join fetch una fila de la orden siguiente puede quedar leída a medias
+    // al vaciar el contexto, así que las líneas se cargan aparte con @BatchSize
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select o from Orden o order by o.idOrden")
+    Stream<Orden> streamAllOrderByIdOrden();
+
+    // Completa la columna normalizada en filas creadas antes de que existiera
+    @Modifying
+    @Transactional
+    @Query("update Orden o set o.estadoNormalizado = lower(trim(o.estado)) where o.estadoNormalizado is null and o.estado is not null")
+    int normalizarEstadosPendientes();
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.dispenser.orders_service.repository;
+
+import com.dispenser.orders_service.model.OutboxEvento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OutboxEventoRepository extends JpaRepository<OutboxEvento, Long> {
+    // SKIP LOCKED permite que varias réplicas vacíen la tabla sin publicar dos veces el mismo lote
+    @Query(value = "SELECT * FROM outbox_evento ORDER BY id_evento LIMIT :limite FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvento> bloquearPendientes(@Param("limite") int limite);
+}
@@ -0,0 +1,95 @@
+package com.dispenser.orders_service.service;
+
+import com.dispenser.orders_service.dto.ClienteDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Caché local de clientes de CLIENTE-SERVICE, acotada por tamaño y TTL. Las
+ * entradas se invalidan con el evento cliente.updated (ver ClienteUpdateListener).
+ * Las métricas se publican como cache.* con la etiqueta cache=clientes.
+ */
+@Component
+public class ClienteCache {
+
+    private static final String CLIENTE_SERVICE_URL = "http://CLIENTE-SERVICE/api/clientes/";
+
+    private final Cache<Long, ClienteDTO> cache;
+    private final RestTemplate restTemplate;
+    private final ExecutorService lookupExecutor;
+
+    @Value("${ordenes.validacion.timeout-ms:3000}")
+    private long timeoutMs;
+
+    @Value("${ordenes.validacion.max-paralelo:16}")
+    private int maxParalelo;
+
+    @Value("${ordenes.clientes.lote:500}")
+    private int tamanoLote;
+
+    public ClienteCache(RestTemplate restTemplate,
+                        ExecutorService lookupExecutor,
+                        MeterRegistry meterRegistry,
+                        @Value("${ordenes.clientes.cache.max-size:10000}") long maxSize,
+                        @Value("${ordenes.clientes.cache.ttl:30m}") Duration ttl) {
+        this.restTemplate = restTemplate;
+        this.lookupExecutor = lookupExecutor;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "clientes");
+    }
+
+    // Devuelve null si el cliente no existe; los ausentes no se guardan en caché
+    public ClienteDTO obtener(Long idCliente) {
+        return cache.get(idCliente, id -> restTemplate.getForObject(CLIENTE_SERVICE_URL + id, ClienteDTO.class));
+    }
+
+    // Solo los IDs que no están en caché se piden a CLIENTE-SERVICE, en lotes
+    public Map<Long, ClienteDTO> obtenerTodos(Collection<Long> idsCliente) {
+        return cache.getAll(idsCliente, this::cargarLotes);
+    }
+
+    public void invalidar(Long idCliente) {
+        cache.invalidate(idCliente);
+    }
+
+    private Map<Long, ClienteDTO> cargarLotes(Set<? extends Long> faltantes) {
+        List<Long> ids = new ArrayList<>(faltantes);
+        Map<Long, ClienteDTO> clientesPorId = new HashMap<>();
+        try (ConsultaParalela consulta = new ConsultaParalela(lookupExecutor, maxParalelo, timeoutMs)) {
+            List<Future<ClienteDTO[]>> futuros = new ArrayList<>();
+            int lote = Math.max(tamanoLote, 1);
+            for (int i = 0; i < ids.size(); i += lote) {
+                List<Long> idsLote = ids.subList(i, Math.min(i + lote, ids.size()));
+                futuros.add(consulta.enviar(() -> restTemplate.postForObject(CLIENTE_SERVICE_URL + "batch", idsLote, ClienteDTO[].class)));
+            }
+            for (Future<ClienteDTO[]> future : futuros) {
+                ClienteDTO[] clientes = consulta.esperar(future);
+                if (clientes != null) {
+                    for (ClienteDTO cliente : clientes) {
+                        clientesPorId.put(cliente.getIdCliente(), cliente);
+                    }
+                }
+            }
+        }
+        return clientesPorId;
+    }
+}
@@ -0,0 +1,27 @@
+package com.dispenser.orders_service.service;
+
+import com.dispenser.orders_service.event.ClienteUpdatedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ClienteUpdateListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClienteUpdateListener.class);
+
+    @Autowired
+    private ClienteCache clienteCache;
+
+    @RabbitListener(queues = "#{clienteUpdatedQueue.name}")
+    public void handleClienteUpdated(ClienteUpdatedEvent event) {
+        if (event.getClientId() == null) {
+            logger.error("Evento cliente.updated sin ID de cliente");
+            return;
+        }
+        clienteCache.invalidar(event.getClientId());
+        logger.info("Cliente {} invalidado en caché", event.getClientId());
+    }
+}
@@ -0,0 +1,64 @@
+package com.dispenser.orders_service.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Lanza consultas remotas en paralelo con un límite de concurrencia y un plazo
+ * común. Al cerrarse cancela las consultas que sigan pendientes.
+ */
+class ConsultaParalela implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final Semaphore permisos;
+    private final long plazoNanos;
+    private final List<Future<?>> pendientes = new ArrayList<>();
+
+    ConsultaParalela(ExecutorService executor, int maxParalelo, long timeoutMs) {
+        this.executor = executor;
+        this.permisos = new Semaphore(Math.max(maxParalelo, 1));
+        this.plazoNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    <T> Future<T> enviar(Callable<T> consulta) {
+        Future<T> future = executor.submit(() -> {
+            permisos.acquire();
+            try {
+                return consulta.call();
+            } finally {
+                permisos.release();
+            }
+        });
+        pendientes.add(future);
+        return future;
+    }
+
+    <T> T esperar(Future<T> future) {
+        long restante = Math.max(plazoNanos - System.nanoTime(), 0);
+        try {
+            return future.get(restante, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Tiempo de espera agotado al validar la orden");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Error al validar la orden", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Validación de la orden interrumpida", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        pendientes.forEach(future -> future.cancel(true));
+    }
+}
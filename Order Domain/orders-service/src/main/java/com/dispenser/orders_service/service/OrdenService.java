@@ -1,23 +1,54 @@
 package com.dispenser.orders_service.service;
 
 import com.dispenser.orders_service.config.RabbitMQConfig;
+import com.dispenser.orders_service.event.CobroCompletedEvent;
+import com.dispenser.orders_service.event.OrderCreatedEvent;
+import com.dispenser.orders_service.event.OrderItem;
 import com.dispenser.orders_service.model.Orden;
 import com.dispenser.orders_service.model.OrdenProducto;
 import com.dispenser.orders_service.repository.OrdenRepository;
 import com.dispenser.orders_service.dto.ClienteDTO;
+import com.dispenser.orders_service.dto.OrdenCursorDTO;
 import com.dispenser.orders_service.dto.OrdenProductoDTO;
-import com.dispenser.orders_service.dto.ProductoDTO;
+import com.dispenser.orders_service.dto.InventarioDTO;
+import com.dispenser.orders_service.dto.ReservaDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import com.dispenser.commons.envio.TarifasEnvio;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class OrdenService {
@@ -31,66 +62,110 @@ public class OrdenService {
     private RestTemplate restTemplate;
 
     @Autowired
-    private RabbitTemplate rabbitTemplate;
+    private OutboxService outboxService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ExecutorService lookupExecutor;
+
+    @Autowired
+    private ClienteCache clienteCache;
+
+    @Autowired
+    private TarifasEnvio tarifasEnvio;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${ordenes.validacion.timeout-ms:3000}")
+    private long validacionTimeoutMs;
+
+    @Value("${ordenes.validacion.max-paralelo:16}")
+    private int validacionMaxParalelo;
+
+    @Value("${ordenes.validacion.lote-productos:200}")
+    private int validacionLoteProductos;
+
+    private static final int MAX_LIMITE_CURSOR = 500;
+    private static final int EXPORTACION_BLOQUE = 500;
 
-    private final String CLIENTE_SERVICE_URL = "http://CLIENTE-SERVICE/api/clientes/";
     private final String PRODUCTO_SERVICE_URL = "http://PRODUCT-SERVICE/api/productos/";
+    private final String INVENTARIO_SERVICE_URL = "http://INVENTORY-SERVICE/api/inventario/";
     private final String DISPATCH_SERVICE_URL = "http://DISPATCH-SERVICE/api/despachos/";
 
+    @EventListener(ApplicationReadyEvent.class)
+    public void normalizarEstadosExistentes() {
+        int actualizadas = ordenRepository.normalizarEstadosPendientes();
+        if (actualizadas > 0) {
+            logger.info("Estado normalizado en {} órdenes existentes", actualizadas);
+        }
+    }
+
     public Orden crearOrden(Orden orden) {
         if (orden.getIdCliente() == null) {
             throw new IllegalArgumentException("El ID del cliente es requerido");
         }
-        ClienteDTO cliente = restTemplate.getForObject(CLIENTE_SERVICE_URL + orden.getIdCliente(), ClienteDTO.class);
-        if (cliente == null) {
-            throw new RuntimeException("Cliente no encontrado con ID: " + orden.getIdCliente());
-        }
-        orden.setCliente(cliente);
-
-        if (orden.getProductos() != null && !orden.getProductos().isEmpty()) {
-            orden.getOrderProducts().clear();
-            for (OrdenProductoDTO opDTO : orden.getProductos()) {
-                ProductoDTO producto = restTemplate.getForObject(PRODUCTO_SERVICE_URL + opDTO.getIdProducto(), ProductoDTO.class);
-                if (producto == null || producto.getStock() < opDTO.getCantidad()) {
-                    throw new RuntimeException("Producto no disponible o stock insuficiente: " + opDTO.getIdProducto());
+        Set<OrdenProductoDTO> productos = orden.getProductos();
+        boolean conProductos = productos != null && !productos.isEmpty();
+        // Clave de la reserva y eventId de order.created: con ella se libera la reserva aunque su respuesta no llegue
+        String claveReserva = UUID.randomUUID().toString();
+        ReservaDTO reserva = null;
+        try (ConsultaParalela consulta = nuevaConsulta()) {
+            // Cliente y reserva de stock se piden a la vez; la reserva comprueba y aparta todas las líneas en una llamada
+            Future<ClienteDTO> clienteFuture = consulta.enviar(() -> clienteCache.obtener(orden.getIdCliente()));
+            Future<ReservaDTO> reservaFuture = conProductos ? consulta.enviar(() -> reservarStock(claveReserva, productos)) : null;
+            try {
+                ClienteDTO cliente = consulta.esperar(clienteFuture);
+                if (cliente == null) {
+                    throw new RuntimeException("Cliente no encontrado con ID: " + orden.getIdCliente());
+                }
+                orden.setCliente(cliente);
+                if (reservaFuture != null) {
+                    reserva = consulta.esperar(reservaFuture);
                 }
-                OrdenProducto op = new OrdenProducto();
-                op.setIdProducto(opDTO.getIdProducto());
-                op.setCantidad(opDTO.getCantidad());
-                op.setOrden(orden);
-                orden.getOrderProducts().add(op);
+            } catch (RuntimeException e) {
+                // La reserva pudo completarse en PRODUCT-SERVICE aunque aquí se cancelara la espera
+                if (conProductos) {
+                    liberarReserva(claveReserva);
+                }
+                throw e;
             }
         }
 
-        Orden savedOrden = ordenRepository.save(orden);
-        savedOrden.updateProductIds();
+        if (conProductos) {
+            orden.getOrderProducts().clear();
+            productos.forEach(opDTO -> agregarLinea(orden, opDTO));
+        }
 
-        // Enviar mensaje a dispatch-service para crear despacho
-        String dispatchMessage = savedOrden.getIdOrden() + ",pendiente de pago";
-        rabbitTemplate.convertAndSend(
-                RabbitMQConfig.ORDER_CREATED_EXCHANGE,
-                RabbitMQConfig.ORDER_CREATED_ROUTING_KEY,
-                dispatchMessage
-        );
-        logger.info("Mensaje enviado a {} con routing key {}: {}", RabbitMQConfig.ORDER_CREATED_EXCHANGE, RabbitMQConfig.ORDER_CREATED_ROUTING_KEY, dispatchMessage);
+        // La orden y su evento se guardan en la misma transacción; OutboxRelay los publica después
+        Long idReserva = reserva != null ? reserva.getIdReserva() : null;
+        try {
+            return transactionTemplate.execute(status -> {
+                Orden savedOrden = ordenRepository.save(orden);
+                savedOrden.updateProductIds();
 
-        // Enviar mensaje para actualizar el stock de productos
-        if (!orden.getOrderProducts().isEmpty()) {
-            StringBuilder stockMessage = new StringBuilder();
-            for (OrdenProducto op : orden.getOrderProducts()) {
-                stockMessage.append(op.getIdProducto()).append(":").append(op.getCantidad()).append(",");
+                // Un solo evento con todas las líneas: dispatch crea el despacho y product asocia la reserva a la orden
+                List<OrderItem> items = savedOrden.getOrderProducts().stream()
+                        .map(op -> new OrderItem(op.getIdProducto(), op.getCantidad()))
+                        .collect(Collectors.toList());
+                OrderCreatedEvent event = new OrderCreatedEvent(savedOrden.getIdOrden(), "pendiente de pago", items, idReserva);
+                event.setEventId(claveReserva);
+                event.setCustomerId(savedOrden.getIdCliente());
+                event.setDeliveryAddress(orden.getCliente() != null ? orden.getCliente().getDireccion() : null);
+                outboxService.registrar(RabbitMQConfig.ORDER_EVENTS_EXCHANGE, RabbitMQConfig.ORDER_CREATED_ROUTING_KEY, event);
+                return savedOrden;
+            });
+        } catch (RuntimeException e) {
+            if (idReserva != null) {
+                liberarReserva(claveReserva);
             }
-            stockMessage.setLength(stockMessage.length() - 1); // Eliminar la última coma
-            String stockUpdateMessage = stockMessage.toString();
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfig.ORDER_PRODUCTS_EXCHANGE,
-                    RabbitMQConfig.ORDER_PRODUCTS_ROUTING_KEY,
-                    stockUpdateMessage
-            );
-            logger.info("Mensaje enviado a {} con routing key {}: {}", RabbitMQConfig.ORDER_PRODUCTS_EXCHANGE, RabbitMQConfig.ORDER_PRODUCTS_ROUTING_KEY, stockUpdateMessage);
+            throw e;
         }
-
-        return savedOrden;
     }
 
     public Orden actualizarOrden(Long id, Orden ordenDetalles) {
@@ -98,75 +173,168 @@ public class OrdenService {
         if (ordenOptional.isPresent()) {
             Orden orden = ordenOptional.get();
 
-            if (ordenDetalles.getIdCliente() != null) {
-                ClienteDTO cliente = restTemplate.getForObject(CLIENTE_SERVICE_URL + ordenDetalles.getIdCliente(), ClienteDTO.class);
-                if (cliente == null) {
-                    throw new RuntimeException("Cliente no encontrado con ID: " + ordenDetalles.getIdCliente());
+            try (ConsultaParalela consulta = nuevaConsulta()) {
+                Future<ClienteDTO> clienteFuture = ordenDetalles.getIdCliente() != null
+                        ? consulta.enviar(() -> clienteCache.obtener(ordenDetalles.getIdCliente()))
+                        : null;
+                List<Future<InventarioDTO[]>> inventariosFuturos = consultarInventarios(consulta, ordenDetalles.getProductos());
+
+                if (clienteFuture != null) {
+                    ClienteDTO cliente = consulta.esperar(clienteFuture);
+                    if (cliente == null) {
+                        throw new RuntimeException("Cliente no encontrado con ID: " + ordenDetalles.getIdCliente());
+                    }
+                    orden.setCliente(cliente);
+                    orden.setIdCliente(ordenDetalles.getIdCliente());
                 }
-                orden.setCliente(cliente);
-                orden.setIdCliente(ordenDetalles.getIdCliente());
-            }
 
-            if (ordenDetalles.getFecha() != null) orden.setFecha(ordenDetalles.getFecha());
-            if (ordenDetalles.getEstado() != null) orden.setEstado(ordenDetalles.getEstado());
+                if (ordenDetalles.getFecha() != null) orden.setFecha(ordenDetalles.getFecha());
+                if (ordenDetalles.getEstado() != null) orden.setEstado(ordenDetalles.getEstado());
 
-            if (ordenDetalles.getProductos() != null && !ordenDetalles.getProductos().isEmpty()) {
-                orden.getOrderProducts().clear();
-                for (OrdenProductoDTO opDTO : ordenDetalles.getProductos()) {
-                    ProductoDTO producto = restTemplate.getForObject(PRODUCTO_SERVICE_URL + opDTO.getIdProducto(), ProductoDTO.class);
-                    if (producto == null || producto.getStock() < opDTO.getCantidad()) {
-                        throw new RuntimeException("Producto no disponible o stock insuficiente: " + opDTO.getIdProducto());
-                    }
-                    OrdenProducto op = new OrdenProducto();
-                    op.setIdProducto(opDTO.getIdProducto());
-                    op.setCantidad(opDTO.getCantidad());
-                    op.setOrden(orden);
-                    orden.getOrderProducts().add(op);
+                if (!inventariosFuturos.isEmpty()) {
+                    orden.getOrderProducts().clear();
+                    agregarLineas(orden, ordenDetalles.getProductos(), inventariosFuturos, consulta);
                 }
             }
 
             // Si el estado es "cobrado", procesar ubicación y total de envío
+            CobroCompletedEvent cobroEvent = null;
             if ("cobrado".equalsIgnoreCase(ordenDetalles.getEstado()) && ordenDetalles.getProductos() != null) {
                 ClienteDTO cliente = orden.getCliente();
                 if (cliente == null && orden.getIdCliente() != null) {
-                    cliente = restTemplate.getForObject(CLIENTE_SERVICE_URL + orden.getIdCliente(), ClienteDTO.class);
+                    cliente = clienteCache.obtener(orden.getIdCliente());
                 }
                 String ubicacionEntrega = (cliente != null) ? cliente.getDireccion() : "Dirección no especificada";
                 double totalEnvio = calcularTotalEnvio(ordenDetalles.getProductos(), ubicacionEntrega);
-                enviarActualizacionDespacho(id, ubicacionEntrega, totalEnvio);
+                cobroEvent = new CobroCompletedEvent(id, ubicacionEntrega, totalEnvio, null);
             }
 
-            Orden updatedOrden = ordenRepository.save(orden);
-            updatedOrden.updateProductIds();
-            return updatedOrden;
+            CobroCompletedEvent eventoPendiente = cobroEvent;
+            return transactionTemplate.execute(status -> {
+                Orden updatedOrden = ordenRepository.save(orden);
+                if (eventoPendiente != null) {
+                    outboxService.registrar(RabbitMQConfig.COBRO_COMPLETED_EXCHANGE, RabbitMQConfig.COBRO_COMPLETED_ROUTING_KEY, eventoPendiente);
+                }
+                updatedOrden.updateProductIds();
+                return updatedOrden;
+            });
         }
         throw new RuntimeException("Orden no encontrada con ID: " + id);
     }
 
-    private double calcularTotalEnvio(Set<OrdenProductoDTO> productos, String ubicacionEntrega) {
-        double costoBasePorProducto = 5.0;
-        double costoDistancia = ubicacionEntrega != null ? ubicacionEntrega.length() * 0.5 : 0.0;
-        double costoTotalProductos = productos.stream().mapToInt(OrdenProductoDTO::getCantidad).sum() * costoBasePorProducto;
-        return costoTotalProductos + costoDistancia;
+    private ConsultaParalela nuevaConsulta() {
+        return new ConsultaParalela(lookupExecutor, validacionMaxParalelo, validacionTimeoutMs);
+    }
+
+    // Idempotency-Key: un reintento de la petición devuelve la misma reserva en lugar de apartar el stock dos veces
+    private ReservaDTO reservarStock(String clave, Set<OrdenProductoDTO> productos) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Idempotency-Key", clave);
+        try {
+            return restTemplate.postForObject(PRODUCTO_SERVICE_URL + "reservas",
+                    new HttpEntity<>(new ArrayList<>(productos), headers), ReservaDTO.class);
+        } catch (HttpClientErrorException.Conflict e) {
+            throw new RuntimeException("Producto no disponible o stock insuficiente", e);
+        }
+    }
+
+    // Por clave: PRODUCT-SERVICE libera la reserva, o la anula si su petición todavía está en curso
+    private void liberarReserva(String clave) {
+        try {
+            restTemplate.delete(PRODUCTO_SERVICE_URL + "reservas/clave/" + clave);
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo liberar la reserva con clave {}; se liberará al vencer", clave, e);
+        }
     }
 
-    private void enviarActualizacionDespacho(Long idOrden, String ubicacionEntrega, double totalEnvio) {
-        String message = idOrden + "," + ubicacionEntrega + "," + totalEnvio;
-        rabbitTemplate.convertAndSend(
-                "cobro.completed.exchange",
-                "cobro.completed",
-                message
-        );
+    // El stock se lee de INVENTORY-SERVICE, que lo mantiene por stock.movement en su propia tabla indexada:
+    // la validación no carga a PRODUCT-SERVICE. Los IDs se piden en lotes, una llamada y un SELECT por lote
+    private List<Future<InventarioDTO[]>> consultarInventarios(ConsultaParalela consulta, Set<OrdenProductoDTO> productos) {
+        List<Future<InventarioDTO[]>> futuros = new ArrayList<>();
+        if (productos == null || productos.isEmpty()) {
+            return futuros;
+        }
+        List<Long> ids = productos.stream().map(OrdenProductoDTO::getIdProducto).distinct().collect(Collectors.toList());
+        int tamanoLote = Math.max(validacionLoteProductos, 1);
+        for (int i = 0; i < ids.size(); i += tamanoLote) {
+            List<Long> lote = ids.subList(i, Math.min(i + tamanoLote, ids.size()));
+            futuros.add(consulta.enviar(() -> restTemplate.postForObject(INVENTARIO_SERVICE_URL + "producto/batch", lote, InventarioDTO[].class)));
+        }
+        return futuros;
+    }
+
+    private void agregarLineas(Orden orden, Set<OrdenProductoDTO> productos, List<Future<InventarioDTO[]>> inventariosFuturos, ConsultaParalela consulta) {
+        Map<Long, InventarioDTO> inventariosPorProducto = new HashMap<>();
+        for (Future<InventarioDTO[]> future : inventariosFuturos) {
+            InventarioDTO[] lote = consulta.esperar(future);
+            if (lote != null) {
+                for (InventarioDTO inventario : lote) {
+                    inventariosPorProducto.put(inventario.getIdProducto(), inventario);
+                }
+            }
+        }
+        for (OrdenProductoDTO opDTO : productos) {
+            InventarioDTO inventario = inventariosPorProducto.get(opDTO.getIdProducto());
+            if (inventario == null || inventario.getStockActual() == null || inventario.getStockActual() < opDTO.getCantidad()) {
+                throw new RuntimeException("Producto no disponible o stock insuficiente: " + opDTO.getIdProducto());
+            }
+            agregarLinea(orden, opDTO);
+        }
+    }
+
+    private void agregarLinea(Orden orden, OrdenProductoDTO opDTO) {
+        OrdenProducto op = new OrdenProducto();
+        op.setIdProducto(opDTO.getIdProducto());
+        op.setCantidad(opDTO.getCantidad());
+        op.setOrden(orden);
+        orden.getOrderProducts().add(op);
+    }
+
+    private double calcularTotalEnvio(Set<OrdenProductoDTO> productos, String ubicacionEntrega) {
+        int unidades = productos.stream().mapToInt(OrdenProductoDTO::getCantidad).sum();
+        return tarifasEnvio.cotizar(unidades, ubicacionEntrega);
     }
 
     public List<Orden> obtenerTodasLasOrdenes() {
-        List<Orden> ordenes = ordenRepository.findAll();
-        return ordenes.stream().map(this::fillCliente).collect(Collectors.toList());
+        return fillClientes(ordenRepository.findAll());
+    }
+
+    public OrdenCursorDTO obtenerOrdenesDesde(Long despuesDe, int limite) {
+        int tamano = Math.min(Math.max(limite, 1), MAX_LIMITE_CURSOR);
+        List<Orden> ordenes = ordenRepository.findByIdOrdenGreaterThanOrderByIdOrdenAsc(
+                despuesDe != null ? despuesDe : 0L, Limit.of(tamano));
+        fillClientes(ordenes);
+        Long siguienteCursor = ordenes.size() == tamano ? ordenes.get(ordenes.size() - 1).getIdOrden() : null;
+        return new OrdenCursorDTO(ordenes, siguienteCursor);
+    }
+
+    // Escribe una orden por línea (NDJSON) a medida que se leen del cursor, en bloques: las líneas de
+    // las órdenes de un bloque se cargan en lotes (@BatchSize) y el contexto de persistencia se vacía
+    // entre bloques para que la memoria no crezca con el tamaño de la tabla
+    @Transactional(readOnly = true)
+    public void exportarOrdenes(OutputStream salida) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(Orden.class);
+        try (Stream<Orden> ordenes = ordenRepository.streamAllOrderByIdOrden()) {
+            Iterator<Orden> iterator = ordenes.iterator();
+            List<Orden> bloque = new ArrayList<>(EXPORTACION_BLOQUE);
+            while (iterator.hasNext()) {
+                bloque.add(iterator.next());
+                if (bloque.size() == EXPORTACION_BLOQUE || !iterator.hasNext()) {
+                    for (Orden orden : bloque) {
+                        salida.write(writer.writeValueAsBytes(orden));
+                        salida.write('\n');
+                    }
+                    bloque.clear();
+                    entityManager.clear();
+                    salida.flush();
+                }
+            }
+        }
+        salida.flush();
     }
 
     public List<Orden> obtenerOrdenesPorCliente(Long idCliente) {
-        List<Orden> ordenes = ordenRepository.findByIdCliente(idCliente);
-        return ordenes.stream().map(this::fillCliente).collect(Collectors.toList());
+        return fillClientes(ordenRepository.findByIdCliente(idCliente));
     }
 
     public Orden obtenerOrdenPorId(Long id) {
@@ -179,11 +347,10 @@ public class OrdenService {
         ordenRepository.deleteById(id);
     }
 
-    public List<Orden> obtenerOrdenesPorEstado(String estado) {
-        return ordenRepository.findAll().stream()
-                .filter(orden -> orden.getEstado() != null && orden.getEstado().equalsIgnoreCase(estado))
-                .map(this::fillCliente)
-                .collect(Collectors.toList());
+    public Page<Orden> obtenerOrdenesPorEstado(String estado, Pageable pageable) {
+        Page<Orden> ordenes = ordenRepository.findByEstadoNormalizado(Orden.normalizarEstado(estado), pageable);
+        fillClientes(ordenes.getContent());
+        return ordenes;
     }
 
     public Long contarOrdenesPorCliente(Long idCliente) {
@@ -192,11 +359,32 @@ public class OrdenService {
 
     private Orden fillCliente(Orden orden) {
         if (orden.getIdCliente() != null) {
-            ClienteDTO cliente = restTemplate.getForObject(CLIENTE_SERVICE_URL + orden.getIdCliente(), ClienteDTO.class);
+            ClienteDTO cliente = clienteCache.obtener(orden.getIdCliente());
             if (cliente != null) {
                 orden.setCliente(cliente);
             }
         }
         return orden;
     }
-}
\ No newline at end of file
+
+    // Resuelve los clientes distintos del listado de una vez (caché y lotes) y reutiliza el resultado en todas las órdenes
+    private List<Orden> fillClientes(List<Orden> ordenes) {
+        List<Long> ids = ordenes.stream()
+                .map(Orden::getIdCliente)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return ordenes;
+        }
+
+        Map<Long, ClienteDTO> clientesPorId = clienteCache.obtenerTodos(ids);
+        for (Orden orden : ordenes) {
+            ClienteDTO cliente = clientesPorId.get(orden.getIdCliente());
+            if (cliente != null) {
+                orden.setCliente(cliente);
+            }
+        }
+        return ordenes;
+    }
+}
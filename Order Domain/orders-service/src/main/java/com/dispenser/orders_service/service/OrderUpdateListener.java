@@ -1,6 +1,8 @@
 package com.dispenser.orders_service.service;
 
 import com.dispenser.orders_service.config.RabbitMQConfig;
+import com.dispenser.orders_service.event.CobroCompletedEvent;
+import com.dispenser.orders_service.event.OrderStatusChangedEvent;
 import com.dispenser.orders_service.model.Orden;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,28 +20,16 @@ public class OrderUpdateListener {
 
     // Escuchar la cola de cobro completado
     @RabbitListener(queues = RabbitMQConfig.COBRO_COMPLETED_QUEUE)
-    public void handleCobroCompleted(String message) {
+    public void handleCobroCompleted(CobroCompletedEvent event) {
         try {
-            logger.info("Mensaje recibido en handleCobroCompleted: {}", message);
+            logger.info("Cobro completado recibido para la orden {}", event.getOrderId());
 
-            // El mensaje tiene el formato: "Orden pagada - lista para enviar,idOrden=36,ubicacion=Dirección,totalEnvio=10.0,montoTotal=110.0"
-            String[] parts = message.split(",");
-            if (parts.length < 2) {
-                logger.error("Formato de mensaje inválido: {}", message);
+            Long idOrden = event.getOrderId();
+            if (idOrden == null) {
+                logger.error("Evento de cobro completado sin idOrden");
                 return;
             }
 
-            // Extraer idOrden
-            String idOrdenPart = parts[1]; // idOrden=36
-            String[] idOrdenSplit = idOrdenPart.split("=");
-            if (idOrdenSplit.length != 2) {
-                logger.error("Formato de idOrden inválido en el mensaje: {}", idOrdenPart);
-                return;
-            }
-
-            Long idOrden = Long.parseLong(idOrdenSplit[1]);
-            logger.info("ID de orden extraído: {}", idOrden);
-
             // Obtener la orden
             Orden orden = ordenService.obtenerOrdenPorId(idOrden);
             if (orden == null) {
@@ -53,43 +43,23 @@ public class OrderUpdateListener {
             logger.info("Estado de la orden {} actualizado a 'Pagado'", idOrden);
 
         } catch (Exception e) {
-            logger.error("Error al procesar el mensaje de cobro completado: {}", message, e);
+            logger.error("Error al procesar el evento de cobro completado para la orden {}", event.getOrderId(), e);
         }
     }
 
     // Mantener el listener original si aún se necesita para otros casos
     @RabbitListener(queues = RabbitMQConfig.ORDER_UPDATE_QUEUE)
-    public void handleOrderUpdate(String message) {
+    public void handleOrderUpdate(OrderStatusChangedEvent event) {
         try {
-            logger.info("Mensaje recibido en handleOrderUpdate: {}", message);
+            logger.info("Cambio de estado recibido para la orden {}: {}", event.getOrderId(), event.getStatus());
 
-            String[] parts = message.split(",");
-            if (parts.length < 2) {
-                logger.error("Formato de mensaje inválido: {}", message);
+            Long idOrden = event.getOrderId();
+            String nuevoEstado = event.getStatus();
+            if (idOrden == null || nuevoEstado == null) {
+                logger.error("Evento de actualización de orden incompleto: idOrden={}, estado={}", idOrden, nuevoEstado);
                 return;
             }
 
-            String idOrdenPart = parts[0]; // idOrden=36
-            String estadoPart = parts[1];  // estado=Pagado y enviado
-
-            String[] idOrdenSplit = idOrdenPart.split("=");
-            if (idOrdenSplit.length != 2) {
-                logger.error("Formato de idOrden inválido en el mensaje: {}", idOrdenPart);
-                return;
-            }
-
-            Long idOrden = Long.parseLong(idOrdenSplit[1]);
-            logger.info("ID de orden extraído: {}", idOrden);
-
-            String[] estadoSplit = estadoPart.split("=");
-            if (estadoSplit.length != 2) {
-                logger.error("Formato de estado inválido en el mensaje: {}", estadoPart);
-                return;
-            }
-
-            String nuevoEstado = estadoSplit[1];
-            logger.info("Nuevo estado extraído: {}", nuevoEstado);
-
             Orden orden = ordenService.obtenerOrdenPorId(idOrden);
             if (orden == null) {
                 logger.error("Orden no encontrada con ID: {}", idOrden);
@@ -101,7 +71,7 @@ public class OrderUpdateListener {
             logger.info("Estado de la orden {} actualizado a '{}'", idOrden, nuevoEstado);
 
         } catch (Exception e) {
-            logger.error("Error al procesar el mensaje de actualización de orden: {}", message, e);
+            logger.error("Error al procesar el evento de actualización de la orden {}", event.getOrderId(), e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,70 @@
+package com.dispenser.orders_service.service;
+
+import com.dispenser.commons.amqp.EventoMessageConverter;
+import com.dispenser.orders_service.model.OutboxEvento;
+import com.dispenser.orders_service.repository.OutboxEventoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Publica en lotes los eventos del outbox y los borra solo cuando el broker
+ * confirma el lote completo. Si la confirmación falla la transacción se
+ * revierte y el lote se reintenta en la siguiente pasada.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private OutboxEventoRepository outboxEventoRepository;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Value("${ordenes.outbox.lote:100}")
+    private int tamanoLote;
+
+    @Value("${ordenes.outbox.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Scheduled(fixedDelayString = "${ordenes.outbox.intervalo-ms:200}")
+    @Transactional
+    public void publicarPendientes() {
+        List<OutboxEvento> eventos = outboxEventoRepository.bloquearPendientes(tamanoLote);
+        if (eventos.isEmpty()) {
+            return;
+        }
+
+        rabbitTemplate.invoke(operations -> {
+            for (OutboxEvento evento : eventos) {
+                operations.send(evento.getExchange(), evento.getRoutingKey(), toMessage(evento));
+            }
+            operations.waitForConfirmsOrDie(confirmTimeoutMs);
+            return null;
+        });
+
+        outboxEventoRepository.deleteAllInBatch(eventos);
+        logger.info("Publicados {} eventos del outbox", eventos.size());
+    }
+
+    private Message toMessage(OutboxEvento evento) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(EventoMessageConverter.CONTENT_TYPE);
+        properties.setContentLength(evento.getPayload().length);
+        properties.setType(evento.getTipo());
+        properties.setHeader(EventoMessageConverter.SCHEMA_VERSION_HEADER, EventoMessageConverter.SCHEMA_VERSION);
+        properties.setMessageId(String.valueOf(evento.getIdEvento()));
+        return new Message(evento.getPayload(), properties);
+    }
+}
@@ -0,0 +1,36 @@
+package com.dispenser.orders_service.service;
+
+import com.dispenser.orders_service.model.OutboxEvento;
+import com.dispenser.orders_service.repository.OutboxEventoRepository;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+public class OutboxService {
+
+    @Autowired
+    private OutboxEventoRepository outboxEventoRepository;
+
+    @Autowired
+    private MessageConverter messageConverter;
+
+    // Solo tiene sentido dentro de la transacción que guarda el cambio de negocio
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(String exchange, String routingKey, Object evento) {
+        Message message = messageConverter.toMessage(evento, new MessageProperties());
+        OutboxEvento outboxEvento = new OutboxEvento();
+        outboxEvento.setExchange(exchange);
+        outboxEvento.setRoutingKey(routingKey);
+        outboxEvento.setTipo(message.getMessageProperties().getType());
+        outboxEvento.setPayload(message.getBody());
+        outboxEvento.setCreadoEn(LocalDateTime.now());
+        outboxEventoRepository.save(outboxEvento);
+    }
+}
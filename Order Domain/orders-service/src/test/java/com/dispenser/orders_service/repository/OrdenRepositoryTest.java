@@ -0,0 +1,152 @@
+package com.dispenser.orders_service.repository;
+
+import com.dispenser.orders_service.model.Orden;
+import com.dispenser.orders_service.model.OrdenProducto;
+import com.dispenser.orders_service.service.OrdenService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Verifica que los listados y la exportación cargan órdenes y líneas con un número acotado de sentencias
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class OrdenRepositoryTest {
+
+    private static final int CLIENTES = 3;
+    private static final int ORDENES_POR_CLIENTE = 10;
+    private static final int LINEAS_POR_ORDEN = 3;
+    private static final int ORDENES_EXPORTADAS = 1_200;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private OrdenRepository ordenRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (long idCliente = 1; idCliente <= CLIENTES; idCliente++) {
+            for (int i = 0; i < ORDENES_POR_CLIENTE; i++) {
+                entityManager.persist(nuevaOrden(idCliente));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAllCargaLasLineasEnUnaSolaSentencia() {
+        List<Orden> ordenes = ordenRepository.findAll();
+
+        assertThat(ordenes).hasSize(CLIENTES * ORDENES_POR_CLIENTE);
+        assertThat(contarLineas(ordenes)).isEqualTo(CLIENTES * ORDENES_POR_CLIENTE * LINEAS_POR_ORDEN);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findByIdClienteCargaLasLineasEnUnaSolaSentencia() {
+        List<Orden> ordenes = ordenRepository.findByIdCliente(1L);
+
+        assertThat(ordenes).hasSize(ORDENES_POR_CLIENTE);
+        assertThat(contarLineas(ordenes)).isEqualTo(ORDENES_POR_CLIENTE * LINEAS_POR_ORDEN);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findByEstadoNormalizadoCargaLasLineasEnLote() {
+        Page<Orden> pagina = ordenRepository.findByEstadoNormalizado("pendiente", PageRequest.of(0, 20, Sort.by("idOrden")));
+
+        assertThat(pagina.getContent()).hasSize(20);
+        assertThat(contarLineas(pagina.getContent())).isEqualTo(20 * LINEAS_POR_ORDEN);
+        // página + conteo + un lote de líneas
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void cursorCargaLasLineasEnLote() {
+        List<Orden> ordenes = ordenRepository.findByIdOrdenGreaterThanOrderByIdOrdenAsc(0L, Limit.of(25));
+
+        assertThat(ordenes).hasSize(25);
+        assertThat(contarLineas(ordenes)).isEqualTo(25 * LINEAS_POR_ORDEN);
+        // página + un lote de líneas
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void exportarEscribeCadaOrdenConTodasSusLineas() throws IOException {
+        // Más de un bloque de exportación (500), para cruzar los puntos donde se vacía el contexto
+        for (int i = 0; i < ORDENES_EXPORTADAS; i++) {
+            entityManager.persist(nuevaOrden(4L));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        OrdenService ordenService = new OrdenService();
+        ReflectionTestUtils.setField(ordenService, "ordenRepository", ordenRepository);
+        ReflectionTestUtils.setField(ordenService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(ordenService, "entityManager", entityManager.getEntityManager());
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        ordenService.exportarOrdenes(salida);
+
+        List<String> lineas = salida.toString(StandardCharsets.UTF_8).lines().toList();
+        int total = CLIENTES * ORDENES_POR_CLIENTE + ORDENES_EXPORTADAS;
+        assertThat(lineas).hasSize(total);
+        for (String linea : lineas) {
+            JsonNode orden = objectMapper.readTree(linea);
+            assertThat(orden.get("orderProducts")).as("orden %s", orden.get("idOrden")).hasSize(LINEAS_POR_ORDEN);
+        }
+        // cursor + un lote de líneas por cada 100 órdenes de cada bloque
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(1 + total / 100 + (total / 500 + 1));
+    }
+
+    private Orden nuevaOrden(long idCliente) {
+        Orden orden = new Orden();
+        orden.setIdCliente(idCliente);
+        orden.setFecha("2025-01-01");
+        orden.setEstado("Pendiente");
+        for (long idProducto = 1; idProducto <= LINEAS_POR_ORDEN; idProducto++) {
+            OrdenProducto linea = new OrdenProducto();
+            linea.setIdProducto(idProducto);
+            linea.setCantidad(1);
+            orden.addProducto(linea);
+        }
+        return orden;
+    }
+
+    private int contarLineas(List<Orden> ordenes) {
+        return ordenes.stream().mapToInt(orden -> orden.getOrderProducts().size()).sum();
+    }
+}
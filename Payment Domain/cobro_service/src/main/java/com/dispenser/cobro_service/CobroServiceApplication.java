@@ -3,10 +3,12 @@ package com.dispenser.cobro_service;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 
 @SpringBootApplication
+@EnableScheduling
 public class CobroServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(CobroServiceApplication.class, args);
@@ -0,0 +1,117 @@
+package com.dispenser.cobro_service.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Ajustes de esquema que ddl-auto=update no hace:
+ * <ul>
+ *   <li>Cobro pasó de IDENTITY a la secuencia cobro_seq. En tablas que ya tenían cobros
+ *   la secuencia recién creada empezaría por debajo del mayor id_cobro, así que se
+ *   adelanta una vez.</li>
+ *   <li>Los índices únicos de Cobro. Hibernate no puede crearlos si ya hay filas
+ *   repetidas (solo deja un aviso en el log), así que antes se resuelven los repetidos y
+ *   luego se crea el índice. Solo id_orden se deduplica borrando: los cobros sobrantes de
+ *   una orden se mueven a cobro_duplicado. Un transaccion_id o una clave_idempotencia
+ *   repetidos son cobros distintos (los IDs antiguos "TXN-" + milisegundos chocaban entre
+ *   órdenes pagadas en el mismo milisegundo), así que se conservan y el valor repetido se
+ *   reescribe como "valor-idCobro", guardando la fila original en cobro_duplicado. Si aun
+ *   así falta algún índice, el servicio no arranca: sin ellos la idempotencia de cobros no
+ *   está garantizada.</li>
+ * </ul>
+ * Ambos pasos son idempotentes: con la secuencia por delante y los índices creados no se toca nada.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class MigracionCobro {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigracionCobro.class);
+
+    // Un bloque de margen (allocationSize = 50) por encima del mayor ID existente
+    private static final String AJUSTAR_SECUENCIA_SQL =
+            "SELECT setval('cobro_seq', m.maximo + 50) FROM (SELECT COALESCE(MAX(id_cobro), 0) AS maximo FROM cobro) m "
+                    + "WHERE m.maximo > 0 AND (SELECT last_value FROM cobro_seq) <= m.maximo";
+
+    private static final String INDICE_ORDEN = "uk_cobro_orden";
+    // Índices cuyos valores repetidos se reescriben (después de deduplicar id_orden), con la longitud de su columna
+    private static final List<IndiceReescrito> INDICES_REESCRITOS = List.of(
+            new IndiceReescrito("uk_cobro_transaccion", "transaccion_id", 255),
+            new IndiceReescrito("uk_cobro_clave_idempotencia", "clave_idempotencia", 64));
+
+    private static final String INDICE_EXISTE_SQL =
+            "SELECT count(*) FROM pg_indexes WHERE schemaname = current_schema() AND tablename = 'cobro' AND indexname = ?";
+    private static final String ORDEN_PREFERENCIA =
+            "ORDER BY CASE estado WHEN 'completado' THEN 0 WHEN 'pendiente' THEN 1 ELSE 2 END, id_cobro DESC";
+    private static final String CREAR_ARCHIVO_SQL =
+            "CREATE TABLE IF NOT EXISTS cobro_duplicado (id_cobro bigint NOT NULL, indice varchar(64) NOT NULL, "
+                    + "fila jsonb NOT NULL, fecha_migracion timestamp NOT NULL DEFAULT now())";
+    // Por cada orden repetida se conserva el cobro completado (si no, el pendiente) más reciente;
+    // el resto se archiva con la fila entera y se borra en la misma sentencia
+    private static final String DEDUPLICAR_ORDEN_SQL =
+            "WITH duplicados AS (SELECT id_cobro FROM (SELECT id_cobro, row_number() OVER (PARTITION BY id_orden "
+                    + ORDEN_PREFERENCIA + ") AS n FROM cobro) r WHERE r.n > 1), "
+                    + "archivados AS (INSERT INTO cobro_duplicado (id_cobro, indice, fila) "
+                    + "SELECT c.id_cobro, ?, to_jsonb(c) FROM cobro c JOIN duplicados d ON d.id_cobro = c.id_cobro) "
+                    + "DELETE FROM cobro c USING duplicados d WHERE c.id_cobro = d.id_cobro";
+    // Con el mismo orden de preferencia, el primero conserva el valor y los demás pasan a "valor-idCobro"
+    // (recortado para caber en la columna); la fila original queda archivada
+    private static final String REESCRIBIR_SQL =
+            "WITH repetidos AS (SELECT id_cobro FROM (SELECT id_cobro, row_number() OVER (PARTITION BY %1$s "
+                    + ORDEN_PREFERENCIA + ") AS n FROM cobro WHERE %1$s IS NOT NULL) r WHERE r.n > 1), "
+                    + "archivados AS (INSERT INTO cobro_duplicado (id_cobro, indice, fila) "
+                    + "SELECT c.id_cobro, ?, to_jsonb(c) FROM cobro c JOIN repetidos d ON d.id_cobro = c.id_cobro) "
+                    + "UPDATE cobro c SET %1$s = left(c.%1$s, %2$d - length(c.id_cobro::text) - 1) || '-' || c.id_cobro "
+                    + "FROM repetidos d WHERE c.id_cobro = d.id_cobro";
+    private static final String CREAR_INDICE_SQL = "CREATE UNIQUE INDEX IF NOT EXISTS %s ON cobro (%s)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void migrar() {
+        if (!jdbcTemplate.queryForList(AJUSTAR_SECUENCIA_SQL, Long.class).isEmpty()) {
+            logger.info("Secuencia cobro_seq adelantada por encima de los cobros existentes");
+        }
+        asegurarIndiceUnico(INDICE_ORDEN, "id_orden", DEDUPLICAR_ORDEN_SQL,
+                "{} cobros con id_orden repetido movidos a cobro_duplicado antes de crear {}");
+        for (IndiceReescrito reescrito : INDICES_REESCRITOS) {
+            asegurarIndiceUnico(reescrito.indice(), reescrito.columna(),
+                    String.format(REESCRIBIR_SQL, reescrito.columna(), reescrito.longitud()),
+                    "{} cobros con " + reescrito.columna() + " repetido reescritos como valor-idCobro antes de crear {}");
+        }
+        List<String> faltantes = Stream.concat(Stream.of(INDICE_ORDEN), INDICES_REESCRITOS.stream().map(IndiceReescrito::indice))
+                .filter(indice -> !existe(indice)).toList();
+        if (!faltantes.isEmpty()) {
+            throw new IllegalStateException("Faltan índices únicos en la tabla cobro: " + faltantes);
+        }
+    }
+
+    private void asegurarIndiceUnico(String indice, String columna, String resolverRepetidosSql, String aviso) {
+        if (existe(indice)) {
+            return;
+        }
+        jdbcTemplate.execute(CREAR_ARCHIVO_SQL);
+        int afectados = jdbcTemplate.update(resolverRepetidosSql, indice);
+        if (afectados > 0) {
+            logger.warn(aviso, afectados, indice);
+        }
+        jdbcTemplate.execute(String.format(CREAR_INDICE_SQL, indice, columna));
+        logger.info("Índice único {} creado en cobro({})", indice, columna);
+    }
+
+    private boolean existe(String indice) {
+        Integer total = jdbcTemplate.queryForObject(INDICE_EXISTE_SQL, Integer.class, indice);
+        return total != null && total > 0;
+    }
+
+    private record IndiceReescrito(String indice, String columna, int longitud) {
+    }
+}
@@ -0,0 +1,120 @@
+package com.dispenser.cobro_service.config;
+
+import com.dispenser.commons.amqp.DlqMessageRecoverer;
+import com.dispenser.commons.amqp.EventoMessageConverter;
+import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageRecoverer;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RabbitMQConfig {
+    public static final String ORDER_EVENTS_EXCHANGE = "order.events.exchange";
+    public static final String ORDER_CREATED_ROUTING_KEY = "order.created";
+    public static final String ORDER_CREATED_QUEUE = "cobro.order.created.queue";
+
+    public static final String CLIENTE_UPDATED_EXCHANGE = "cliente.updated.exchange";
+    public static final String CLIENTE_UPDATED_ROUTING_KEY = "cliente.updated";
+    public static final String CLIENTE_UPDATED_QUEUE = "cobro.cliente.updated.queue";
+
+    public static final String COBRO_COMPLETED_EXCHANGE = "cobro.completed.exchange";
+    public static final String COBRO_COMPLETED_ROUTING_KEY = "cobro.completed";
+    public static final String COBRO_COMPLETED_QUEUE = "cobro.orden.pagada.queue";
+
+    public static final String DISPATCH_UPDATED_EXCHANGE = "dispatch.updated.exchange";
+    public static final String DISPATCH_UPDATED_ROUTING_KEY = "dispatch.updated";
+    public static final String DISPATCH_UPDATED_QUEUE = "cobro.dispatch.updated.queue";
+
+    public static final String DLX_EXCHANGE = "cobro.dlx";
+
+    @Bean
+    public MessageConverter eventoMessageConverter() {
+        return new EventoMessageConverter();
+    }
+
+    // Mensajes que agotan los reintentos: se republican en <cola>.dlq en lugar de descartarse
+    @Bean
+    public MessageRecoverer dlqMessageRecoverer(RabbitTemplate rabbitTemplate) {
+        return new DlqMessageRecoverer(rabbitTemplate, DLX_EXCHANGE);
+    }
+
+    @Bean
+    public Declarables deadLetterDeclarables() {
+        return DlqMessageRecoverer.declarables(DLX_EXCHANGE,
+                ORDER_CREATED_QUEUE, CLIENTE_UPDATED_QUEUE, COBRO_COMPLETED_QUEUE, DISPATCH_UPDATED_QUEUE);
+    }
+
+    @Bean
+    public TopicExchange orderEventsExchange() {
+        return new TopicExchange(ORDER_EVENTS_EXCHANGE);
+    }
+
+    @Bean
+    public Queue orderCreatedQueue() {
+        return QueueBuilder.durable(ORDER_CREATED_QUEUE).build();
+    }
+
+    @Bean
+    public Binding orderCreatedBinding(Queue orderCreatedQueue, TopicExchange orderEventsExchange) {
+        return BindingBuilder
+                .bind(orderCreatedQueue)
+                .to(orderEventsExchange)
+                .with(ORDER_CREATED_ROUTING_KEY);
+    }
+
+    @Bean
+    public TopicExchange clienteUpdatedExchange() {
+        return new TopicExchange(CLIENTE_UPDATED_EXCHANGE);
+    }
+
+    @Bean
+    public Queue clienteUpdatedQueue() {
+        return QueueBuilder.durable(CLIENTE_UPDATED_QUEUE).build();
+    }
+
+    @Bean
+    public Binding clienteUpdatedBinding(Queue clienteUpdatedQueue, TopicExchange clienteUpdatedExchange) {
+        return BindingBuilder
+                .bind(clienteUpdatedQueue)
+                .to(clienteUpdatedExchange)
+                .with(CLIENTE_UPDATED_ROUTING_KEY);
+    }
+
+    @Bean
+    public DirectExchange cobroCompletedExchange() {
+        return new DirectExchange(COBRO_COMPLETED_EXCHANGE);
+    }
+
+    @Bean
+    public Queue cobroCompletedQueue() {
+        return QueueBuilder.durable(COBRO_COMPLETED_QUEUE).build();
+    }
+
+    @Bean
+    public Binding cobroCompletedBinding(Queue cobroCompletedQueue, DirectExchange cobroCompletedExchange) {
+        return BindingBuilder
+                .bind(cobroCompletedQueue)
+                .to(cobroCompletedExchange)
+                .with(COBRO_COMPLETED_ROUTING_KEY);
+    }
+
+    @Bean
+    public DirectExchange dispatchUpdatedExchange() {
+        return new DirectExchange(DISPATCH_UPDATED_EXCHANGE);
+    }
+
+    @Bean
+    public Queue dispatchUpdatedQueue() {
+        return QueueBuilder.durable(DISPATCH_UPDATED_QUEUE).build();
+    }
+
+    @Bean
+    public Binding dispatchUpdatedBinding(Queue dispatchUpdatedQueue, DirectExchange dispatchUpdatedExchange) {
+        return BindingBuilder
+                .bind(dispatchUpdatedQueue)
+                .to(dispatchUpdatedExchange)
+                .with(DISPATCH_UPDATED_ROUTING_KEY);
+    }
+}
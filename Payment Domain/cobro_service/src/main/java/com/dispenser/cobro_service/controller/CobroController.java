@@ -1,26 +1,50 @@
 package com.dispenser.cobro_service.controller;
 
 import com.dispenser.cobro_service.dto.CobroDTO;
+import com.dispenser.cobro_service.dto.LiquidacionResultadoDTO;
 import com.dispenser.cobro_service.model.*;
 import com.dispenser.cobro_service.service.CobroService;
+import com.dispenser.cobro_service.service.LiquidacionCobros;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.net.URI;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/cobros")
 public class CobroController {
     @Autowired
     private CobroService cobroService;
 
+    @Autowired
+    private LiquidacionCobros liquidacionCobros;
+
+    // 202 mientras el proveedor de pagos responde; el estado final se consulta en GET /api/cobros/{idCobro}.
+    // Idempotency-Key (opcional): reenviar la misma petición devuelve el cobro original
     @PostMapping
-    public ResponseEntity<CobroDTO> crearCobro(@RequestBody CobroDTO cobroDTO) {
-        Cobro cobro = cobroService.crearCobro(cobroDTO.getIdOrden(), cobroDTO.getMonto(), cobroDTO.getMetodoPago());
+    public ResponseEntity<CobroDTO> crearCobro(@RequestHeader(value = "Idempotency-Key", required = false) String claveIdempotencia,
+                                               @RequestBody CobroDTO cobroDTO) {
+        if (claveIdempotencia != null && (claveIdempotencia.isBlank() || claveIdempotencia.length() > 64)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key debe tener entre 1 y 64 caracteres");
+        }
+        Cobro cobro = cobroService.crearCobro(cobroDTO.getIdOrden(), cobroDTO.getMonto(), cobroDTO.getMetodoPago(), claveIdempotencia);
         CobroDTO responseDto = convertToDTO(cobro);
+        if (Cobro.PENDIENTE.equals(cobro.getEstado())) {
+            return ResponseEntity.accepted().location(URI.create("/api/cobros/" + cobro.getIdCobro())).body(responseDto);
+        }
         return ResponseEntity.ok(responseDto);
     }
 
+    // Liquidación de marketplace: miles de cobros en una petición, insertados en lotes
+    @PostMapping("/lote")
+    public ResponseEntity<LiquidacionResultadoDTO> registrarLote(@RequestBody List<CobroDTO> cobros) {
+        return ResponseEntity.ok(liquidacionCobros.registrar(cobros));
+    }
+
     @GetMapping("/{idCobro}")
     public ResponseEntity<CobroDTO> obtenerCobro(@PathVariable Long idCobro) {
         Cobro cobro = cobroService.obtenerCobroPorId(idCobro);
@@ -51,6 +75,9 @@ public class CobroController {
         dto.setTransaccionId(cobro.getTransaccionId());
         dto.setCostoEnvio(cobro.getCostoEnvio());
         dto.setMoneda(cobro.getMoneda());
+        dto.setMontoTotal(cobro.getMontoTotal());
+        dto.setReferenciaProveedor(cobro.getReferenciaProveedor());
+        dto.setMotivoFallo(cobro.getMotivoFallo());
         return dto;
     }
 }
\ No newline at end of file
@@ -18,4 +18,6 @@ public class CobroDTO {
     private Double costoEnvio;
     private String moneda;
     private Double montoTotal; // Agregado para soportar setMontoTotal en CobroService
+    private String referenciaProveedor;
+    private String motivoFallo; // Solo en cobros fallidos
 }
\ No newline at end of file
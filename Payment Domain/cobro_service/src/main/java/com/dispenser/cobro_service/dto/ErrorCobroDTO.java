@@ -0,0 +1,17 @@
+package com.dispenser.cobro_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ErrorCobroDTO {
+    // Posición del cobro en la petición, empezando en 1
+    private int posicion;
+    private Long idOrden;
+    private String mensaje;
+}
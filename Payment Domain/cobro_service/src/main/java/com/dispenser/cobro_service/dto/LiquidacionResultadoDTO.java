@@ -0,0 +1,17 @@
+package com.dispenser.cobro_service.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class LiquidacionResultadoDTO {
+    private int recibidos;
+    private int registrados;
+    private int rechazados;
+    // Solo los primeros cobros.liquidacion.max-errores; rechazados lleva el total
+    private List<ErrorCobroDTO> errores = new ArrayList<>();
+}
@@ -0,0 +1,17 @@
+package com.dispenser.cobro_service.event;
+
+public class ClienteUpdatedEvent {
+    private Long clientId;
+    private String address;
+
+    public ClienteUpdatedEvent() {}
+    public ClienteUpdatedEvent(Long clientId, String address) {
+        this.clientId = clientId;
+        this.address = address;
+    }
+
+    public Long getClientId() { return clientId; }
+    public void setClientId(Long clientId) { this.clientId = clientId; }
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+}
@@ -0,0 +1,18 @@
+package com.dispenser.cobro_service.event;
+
+// Despacho con fecha asignada (dispatch.updated)
+public class DispatchScheduledEvent {
+    private Long dispatchId;
+    private Long orderId;
+
+    public DispatchScheduledEvent() {}
+    public DispatchScheduledEvent(Long dispatchId, Long orderId) {
+        this.dispatchId = dispatchId;
+        this.orderId = orderId;
+    }
+
+    public Long getDispatchId() { return dispatchId; }
+    public void setDispatchId(Long dispatchId) { this.dispatchId = dispatchId; }
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+}
@@ -0,0 +1,28 @@
+package com.dispenser.cobro_service.event;
+
+import java.util.List;
+
+// Orden creada (order.created); cobro solo usa los datos necesarios para cobrarla
+public class OrderCreatedEvent {
+    private Long orderId;
+    private List<OrderItem> items;
+    private Long customerId;
+    private String deliveryAddress;
+
+    public OrderCreatedEvent() {}
+    public OrderCreatedEvent(Long orderId, List<OrderItem> items, Long customerId, String deliveryAddress) {
+        this.orderId = orderId;
+        this.items = items;
+        this.customerId = customerId;
+        this.deliveryAddress = deliveryAddress;
+    }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public List<OrderItem> getItems() { return items; }
+    public void setItems(List<OrderItem> items) { this.items = items; }
+    public Long getCustomerId() { return customerId; }
+    public void setCustomerId(Long customerId) { this.customerId = customerId; }
+    public String getDeliveryAddress() { return deliveryAddress; }
+    public void setDeliveryAddress(String deliveryAddress) { this.deliveryAddress = deliveryAddress; }
+}
@@ -7,12 +7,23 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "cobro")
+@Table(name = "cobro", indexes = {
+        @Index(name = "uk_cobro_orden", columnList = "id_orden", unique = true),
+        @Index(name = "uk_cobro_clave_idempotencia", columnList = "clave_idempotencia", unique = true),
+        @Index(name = "uk_cobro_transaccion", columnList = "transaccion_id", unique = true)
+})
 @Getter
 @Setter
 public class Cobro {
+    // pendiente -> completado | fallido, según la respuesta del proveedor de pagos
+    public static final String PENDIENTE = "pendiente";
+    public static final String COMPLETADO = "completado";
+    public static final String FALLIDO = "fallido";
+
+    // Secuencia con bloques de 50 IDs: Hibernate agrupa los INSERT en lotes JDBC (con IDENTITY no puede)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cobro_seq")
+    @SequenceGenerator(name = "cobro_seq", sequenceName = "cobro_seq", allocationSize = 50)
     @Column(name = "id_cobro")
     private Long idCobro;
 
@@ -43,5 +54,16 @@ public class Cobro {
     @Column(name = "monto_total")
     private Double montoTotal; // Nueva columna
 
+    // Cabecera Idempotency-Key de la petición que creó el cobro (opcional)
+    @Column(name = "clave_idempotencia", length = 64)
+    private String claveIdempotencia;
+
+    // Identificador del pago en el proveedor
+    @Column(name = "referencia_proveedor")
+    private String referenciaProveedor;
+
+    @Column(name = "motivo_fallo")
+    private String motivoFallo;
+
     // Constructores, getters y setters (generados por Lombok)
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.dispenser.cobro_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Copia local de lo necesario para cobrar una orden, mantenida con eventos de órdenes, clientes y despachos
+@Entity
+@Table(name = "orden_pagable", indexes = {
+        @Index(name = "idx_orden_pagable_cliente_estado", columnList = "id_cliente, estado")
+})
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrdenPagable {
+    public static final String PENDIENTE = "pendiente";
+    public static final String PAGADA = "pagada";
+    public static final String DESPACHADA = "despachada";
+
+    @Id
+    @Column(name = "id_orden")
+    private Long idOrden;
+
+    @Column(name = "id_cliente")
+    private Long idCliente;
+
+    @Column(name = "direccion_entrega")
+    private String direccionEntrega;
+
+    @Column(nullable = false)
+    private String estado;
+
+    @Column(name = "actualizada_en", nullable = false)
+    private LocalDateTime actualizadaEn;
+
+    @ElementCollection
+    @CollectionTable(name = "orden_pagable_linea", joinColumns = @JoinColumn(name = "id_orden"))
+    private List<OrdenPagableLinea> lineas = new ArrayList<>();
+
+    public int getUnidades() {
+        return lineas.stream().mapToInt(OrdenPagableLinea::getCantidad).sum();
+    }
+}
@@ -0,0 +1,21 @@
+package com.dispenser.cobro_service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Embeddable
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrdenPagableLinea {
+    @Column(name = "id_producto", nullable = false)
+    private Long idProducto;
+
+    @Column(name = "cantidad", nullable = false)
+    private Integer cantidad;
+}
@@ -1,7 +1,44 @@
 package com.dispenser.cobro_service.repository;
 
 import com.dispenser.cobro_service.model.Cobro;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface CobroRepository extends JpaRepository<Cobro, Long> {
+
+    // Ambas por índice único (uk_cobro_orden, uk_cobro_clave_idempotencia)
+    Optional<Cobro> findByIdOrden(Long idOrden);
+
+    Optional<Cobro> findByClaveIdempotencia(String claveIdempotencia);
+
+    @Query("select c.idOrden from Cobro c where c.idOrden in :idsOrden")
+    List<Long> findIdsOrdenCobradas(@Param("idsOrden") Collection<Long> idsOrden);
+
+    List<Cobro> findByEstadoAndFechaCobroBeforeAndIdCobroGreaterThanOrderByIdCobroAsc(String estado, LocalDateTime fecha,
+                                                                                     Long idCobro, Limit limite);
+
+    // Cierra un cobro pendiente de la misma transacción; una aprobación también corrige un fallido,
+    // porque el proveedor no cobra dos veces la misma transacción
+    @Transactional
+    @Modifying
+    @Query("update Cobro c set c.estado = :estado, c.referenciaProveedor = :referencia, c.motivoFallo = :motivo "
+            + "where c.idCobro = :idCobro and c.transaccionId = :transaccionId "
+            + "and (c.estado = 'pendiente' or (:estado = 'completado' and c.estado = 'fallido'))")
+    int finalizar(@Param("idCobro") Long idCobro, @Param("transaccionId") String transaccionId, @Param("estado") String estado,
+                  @Param("referencia") String referencia, @Param("motivo") String motivo);
+
+    // Un cobro fallido se puede reintentar una sola vez a la vez: gana quien lo pasa a pendiente
+    @Transactional
+    @Modifying
+    @Query("update Cobro c set c.estado = 'pendiente' where c.idCobro = :idCobro and c.estado = 'fallido'")
+    int reabrir(@Param("idCobro") Long idCobro);
 }
\ No newline at end of file
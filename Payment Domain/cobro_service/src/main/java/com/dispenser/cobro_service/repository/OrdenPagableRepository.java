@@ -0,0 +1,40 @@
+package com.dispenser.cobro_service.repository;
+
+import com.dispenser.cobro_service.model.OrdenPagable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface OrdenPagableRepository extends JpaRepository<OrdenPagable, Long> {
+
+    @Override
+    @EntityGraph(attributePaths = "lineas")
+    Optional<OrdenPagable> findById(Long idOrden);
+
+    @EntityGraph(attributePaths = "lineas")
+    List<OrdenPagable> findByIdOrdenIn(Collection<Long> idsOrden);
+
+    // Solo avanza: pendiente -> pagada -> despachada
+    @Modifying
+    @Query("update OrdenPagable o set o.estado = :nuevo, o.actualizadaEn = :fecha where o.idOrden = :idOrden and o.estado in :desde")
+    int cambiarEstado(@Param("idOrden") Long idOrden, @Param("desde") Collection<String> desde,
+                      @Param("nuevo") String nuevo, @Param("fecha") LocalDateTime fecha);
+
+    @Modifying
+    @Query("update OrdenPagable o set o.estado = :nuevo, o.actualizadaEn = :fecha where o.idOrden in :idsOrden and o.estado in :desde")
+    int cambiarEstadoTodas(@Param("idsOrden") Collection<Long> idsOrden, @Param("desde") Collection<String> desde,
+                           @Param("nuevo") String nuevo, @Param("fecha") LocalDateTime fecha);
+
+    // Las órdenes ya pagadas conservan la dirección con la que se cobraron
+    @Modifying
+    @Query("update OrdenPagable o set o.direccionEntrega = :direccion, o.actualizadaEn = :fecha where o.idCliente = :idCliente and o.estado = 'pendiente'")
+    int actualizarDireccion(@Param("idCliente") Long idCliente, @Param("direccion") String direccion,
+                            @Param("fecha") LocalDateTime fecha);
+}
@@ -1,22 +1,23 @@
 package com.dispenser.cobro_service.service;
 
 import com.dispenser.cobro_service.model.Cobro;
-import com.dispenser.cobro_service.dto.*;
+import com.dispenser.cobro_service.model.OrdenPagable;
+import com.dispenser.cobro_service.event.CobroCompletedEvent;
+import com.dispenser.cobro_service.event.OrderStatusChangedEvent;
 import com.dispenser.cobro_service.repository.CobroRepository;
+import com.dispenser.commons.envio.TarifasEnvio;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Locale;
-import java.util.Set;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class CobroService {
@@ -26,106 +27,173 @@ public class CobroService {
     private CobroRepository cobroRepository;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private OrdenesPagables ordenesPagables;
 
     @Autowired
     private RabbitTemplate rabbitTemplate;
 
-    private final String ORDERS_SERVICE_URL = "http://ORDERS-SERVICE/api/ordenes/";
-    private final String DESPACHO_SERVICE_URL = "http://DISPATCH-SERVICE/api/despachos/";
+    @Autowired
+    private TransaccionIdGenerator transaccionIdGenerator;
+
+    @Autowired
+    private TarifasEnvio tarifasEnvio;
+
+    @Autowired
+    private ProcesadorPagos procesadorPagos;
 
     private final String COBRO_COMPLETED_EXCHANGE = "cobro.completed.exchange";
     private final String COBRO_COMPLETED_ROUTING_KEY = "cobro.completed";
     private final String ORDER_UPDATE_EXCHANGE = "order.update.exchange";
     private final String ORDER_UPDATE_ROUTING_KEY = "order.update";
 
-    public Cobro crearCobro(Long idOrden, Double monto, String metodoPago) {
-        // Verificar si la orden ya está pagada en despacho
-        DespachoDTO despacho = null;
+    // El cobro se guarda pendiente y el proveedor de pagos se llama en segundo plano.
+    // Con claveIdempotencia, una petición repetida devuelve el cobro ya guardado sin volver a cobrar
+    public Cobro crearCobro(Long idOrden, Double monto, String metodoPago, String claveIdempotencia) {
+        if (claveIdempotencia != null) {
+            Optional<Cobro> previo = cobroRepository.findByClaveIdempotencia(claveIdempotencia);
+            if (previo.isPresent()) {
+                return repetido(previo.get(), idOrden);
+            }
+        }
+
+        // Estado, líneas y dirección salen del modelo local; no hay llamadas a otros servicios en el camino habitual
+        OrdenPagable orden = ordenesPagables.obtener(idOrden);
+        Optional<Cobro> existente = cobroRepository.findByIdOrden(idOrden);
+        if (!OrdenPagable.PENDIENTE.equals(orden.getEstado())
+                || existente.filter(c -> !Cobro.FALLIDO.equals(c.getEstado())).isPresent()) {
+            logger.warn("Intento de pago duplicado detectado para idOrden {} (estado {})", idOrden, orden.getEstado());
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "La orden " + idOrden + " ya ha sido pagada y no se puede procesar nuevamente.");
+        }
+
+        if (!procesadorPagos.reservar()) {
+            logger.warn("Proveedor de pagos saturado; cobro de la orden {} rechazado", idOrden);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "El proveedor de pagos está saturado, intente más tarde");
+        }
+        boolean enviado = false;
+        boolean reabierto = false;
         try {
-            String url = DESPACHO_SERVICE_URL + "obtenerPorIdOrden?idOrden=" + idOrden;
-            logger.info("Intentando consultar despacho en URL: {}", url);
-            despacho = restTemplate.getForObject(url, DespachoDTO.class);
-            logger.info("Respuesta del despacho-service para idOrden {}: Estado = {}, Objeto completo = {}", idOrden,
-                       (despacho != null ? despacho.getEstado() : "null"), despacho);
-            if (despacho != null && "Orden pagada - lista para enviar".equals(despacho.getEstado())) {
-                logger.warn("Intento de pago duplicado detectado para idOrden {}", idOrden);
+            Cobro cobro = nuevoCobro(orden, monto, metodoPago, claveIdempotencia, Cobro.PENDIENTE);
+            if (existente.isPresent()) {
+                // Reintento de un cobro fallido: se reutiliza la fila (id_orden es único)
+                if (cobroRepository.reabrir(existente.get().getIdCobro()) == 0) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "La orden " + idOrden + " ya tiene un cobro en curso.");
+                }
+                reabierto = true;
+                cobro.setIdCobro(existente.get().getIdCobro());
+                // Misma referencia ante el proveedor: si el intento anterior llegó a cobrarse no se cobra otra vez
+                cobro.setTransaccionId(existente.get().getTransaccionId());
+            }
+
+            Cobro savedCobro;
+            try {
+                savedCobro = cobroRepository.saveAndFlush(cobro);
+            } catch (DataIntegrityViolationException e) {
+                // Otra petición guardó a la vez un cobro para esta orden o con esta clave
+                if (claveIdempotencia != null) {
+                    Optional<Cobro> previo = cobroRepository.findByClaveIdempotencia(claveIdempotencia);
+                    if (previo.isPresent()) {
+                        return repetido(previo.get(), idOrden);
+                    }
+                }
+                logger.warn("Pago concurrente duplicado detectado para idOrden {}", idOrden);
                 throw new ResponseStatusException(HttpStatus.CONFLICT, "La orden " + idOrden + " ya ha sido pagada y no se puede procesar nuevamente.");
             }
-        } catch (HttpClientErrorException e) {
-            logger.error("Error HTTP al consultar despacho para idOrden {}: Status = {}, Response = {}", idOrden, e.getStatusCode(), e.getResponseBodyAsString());
-            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-                logger.info("No se encontró despacho para idOrden {}, procediendo con el pago.", idOrden);
-            } else {
-                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error al verificar el estado del despacho: " + e.getStatusCode() + " - " + e.getResponseBodyAsString(), e);
+
+            enviarAlProveedor(savedCobro);
+            enviado = true;
+            return savedCobro;
+        } finally {
+            if (!enviado) {
+                procesadorPagos.liberar();
+                if (reabierto) {
+                    // El reintento no llegó al proveedor: el cobro vuelve a quedar fallido
+                    cobroRepository.finalizar(existente.get().getIdCobro(), existente.get().getTransaccionId(),
+                            Cobro.FALLIDO, null, existente.get().getMotivoFallo());
+                }
             }
-        } catch (Exception e) {
-            logger.error("Excepción inesperada al consultar despacho para idOrden {}: {}", idOrden, e.getMessage(), e);
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error inesperado al verificar el estado del despacho: " + e.getMessage(), e);
         }
+    }
 
-        // Obtener la orden desde orders-service
-        OrdenDTO orden;
-        try {
-            orden = restTemplate.getForObject(ORDERS_SERVICE_URL + idOrden, OrdenDTO.class);
-            if (orden == null) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Orden no encontrada con ID: " + idOrden);
-            }
-        } catch (HttpClientErrorException e) {
-            logger.error("Error al consultar la orden con ID {}: {}", idOrden, e.getMessage());
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error al obtener la orden: " + e.getStatusCode() + " - " + e.getResponseBodyAsString(), e);
-        } catch (Exception e) {
-            logger.error("Excepción inesperada al consultar la orden con ID {}: {}", idOrden, e.getMessage());
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error inesperado al obtener la orden", e);
+    // Respuesta del proveedor, directa o por conciliación. Una aprobación tardía corrige un fallido de la misma transacción
+    void finalizarPago(Long idCobro, String transaccionId, ResultadoPago resultado) {
+        String estado = resultado.isAprobado() ? Cobro.COMPLETADO : Cobro.FALLIDO;
+        if (cobroRepository.finalizar(idCobro, transaccionId, estado, resultado.getReferencia(), resultado.getMotivo()) == 0) {
+            logger.info("Cobro {} ya finalizado; se ignora la respuesta del proveedor", idCobro);
+            return;
         }
+        Cobro cobro = obtenerCobroPorId(idCobro);
+        if (resultado.isAprobado()) {
+            ordenesPagables.marcarPagada(cobro.getIdOrden());
+            publicarEventos(cobro, ubicacionEntrega(ordenesPagables.obtener(cobro.getIdOrden())));
+            return;
+        }
+
+        logger.warn("Cobro {} de la orden {} fallido: {}", idCobro, cobro.getIdOrden(), resultado.getMotivo());
+        rabbitTemplate.convertAndSend(
+            ORDER_UPDATE_EXCHANGE,
+            ORDER_UPDATE_ROUTING_KEY,
+            new OrderStatusChangedEvent(cobro.getIdOrden(), "Pago rechazado")
+        );
+    }
+
+    // Cobro pendiente que el proveedor nunca recibió: se reenvía con el mismo transaccionId
+    CompletableFuture<Void> reenviar(Cobro cobro) {
+        Long idCobro = cobro.getIdCobro();
+        String transaccionId = cobro.getTransaccionId();
+        return procesadorPagos.enviarCuandoHayaPermiso(solicitud(cobro), resultado -> finalizarPago(idCobro, transaccionId, resultado));
+    }
+
+    private void enviarAlProveedor(Cobro cobro) {
+        Long idCobro = cobro.getIdCobro();
+        String transaccionId = cobro.getTransaccionId();
+        procesadorPagos.enviar(solicitud(cobro), resultado -> finalizarPago(idCobro, transaccionId, resultado));
+    }
+
+    private SolicitudPago solicitud(Cobro cobro) {
+        return new SolicitudPago(cobro.getTransaccionId(), cobro.getIdOrden(), cobro.getMontoTotal(), cobro.getMoneda(), cobro.getMetodoPago());
+    }
+
+    // Envío y total se calculan antes de guardar, así el cobro se escribe con un solo INSERT
+    Cobro nuevoCobro(OrdenPagable orden, Double monto, String metodoPago, String claveIdempotencia, String estado) {
+        double totalEnvio = calcularTotalEnvio(orden.getUnidades(), ubicacionEntrega(orden));
 
         Cobro cobro = new Cobro();
-        cobro.setIdOrden(idOrden);
+        cobro.setIdOrden(orden.getIdOrden());
         cobro.setMonto(monto);
         cobro.setMetodoPago(metodoPago);
         cobro.setFechaCobro(LocalDateTime.now());
-        cobro.setEstado("pendiente");
-        cobro.setTransaccionId(generateTransactionId());
-        cobro.setCostoEnvio(0.0);
+        cobro.setTransaccionId(transaccionIdGenerator.siguiente());
+        cobro.setCostoEnvio(totalEnvio);
+        cobro.setMontoTotal(monto + totalEnvio);
         cobro.setMoneda("USD");
+        cobro.setClaveIdempotencia(claveIdempotencia);
+        cobro.setEstado(estado);
+        return cobro;
+    }
 
-        // Simulación de éxito del cobro
-        cobro.setEstado("completado");
-        Cobro savedCobro = cobroRepository.save(cobro);
-
-        // Obtener la dirección del cliente
-        String ubicacionEntrega = orden.getCliente() != null ? orden.getCliente().getDireccion() : "Dirección no especificada";
-        double totalEnvio = calcularTotalEnvio(orden.getOrderProducts(), ubicacionEntrega);
-        savedCobro.setCostoEnvio(totalEnvio);
-
-        // Calcular monto total
-        double montoTotal = monto + totalEnvio;
-        savedCobro.setMontoTotal(montoTotal);
-
-        cobroRepository.save(savedCobro);
-
-        // Publicar mensaje a RabbitMQ para actualizar el estado de la orden
-        String orderUpdateMessage = String.format("idOrden=%d,estado=Pagado", savedCobro.getIdOrden());
+    void publicarEventos(Cobro cobro, String ubicacionEntrega) {
+        // Publicar evento a RabbitMQ para actualizar el estado de la orden
+        OrderStatusChangedEvent orderUpdateEvent = new OrderStatusChangedEvent(cobro.getIdOrden(), "Pagado");
         rabbitTemplate.convertAndSend(
             ORDER_UPDATE_EXCHANGE,
             ORDER_UPDATE_ROUTING_KEY,
-            orderUpdateMessage
+            orderUpdateEvent
         );
-        logger.info("Mensaje enviado a RabbitMQ - Exchange: {}, Routing Key: {}, Message: {}", ORDER_UPDATE_EXCHANGE, ORDER_UPDATE_ROUTING_KEY, orderUpdateMessage);
+        logger.info("Evento enviado a RabbitMQ - Exchange: {}, Routing Key: {}, Orden: {}", ORDER_UPDATE_EXCHANGE, ORDER_UPDATE_ROUTING_KEY, cobro.getIdOrden());
 
-        // Publicar mensaje a RabbitMQ para despacho
-        Locale.setDefault(Locale.US); // Para evitar coma como separador decimal
-        String dispatchMessage = String.format(Locale.US,
-            "Orden pagada - lista para enviar,idOrden=%d,ubicacion=%s,totalEnvio=%.2f,montoTotal=%.2f",
-            savedCobro.getIdOrden(), ubicacionEntrega, totalEnvio, montoTotal);
+        // Publicar evento a RabbitMQ para despacho
+        CobroCompletedEvent dispatchEvent = new CobroCompletedEvent(cobro.getIdOrden(), ubicacionEntrega, cobro.getCostoEnvio(), cobro.getMontoTotal());
         rabbitTemplate.convertAndSend(
             COBRO_COMPLETED_EXCHANGE,
             COBRO_COMPLETED_ROUTING_KEY,
-            dispatchMessage
+            dispatchEvent
         );
-        logger.info("Mensaje enviado a RabbitMQ - Exchange: {}, Routing Key: {}, Message: {}", COBRO_COMPLETED_EXCHANGE, COBRO_COMPLETED_ROUTING_KEY, dispatchMessage);
+        logger.info("Evento enviado a RabbitMQ - Exchange: {}, Routing Key: {}, Orden: {}", COBRO_COMPLETED_EXCHANGE, COBRO_COMPLETED_ROUTING_KEY, cobro.getIdOrden());
+    }
 
-        return savedCobro;
+    // Dirección de entrega del cliente
+    String ubicacionEntrega(OrdenPagable orden) {
+        return orden.getDireccionEntrega() != null ? orden.getDireccionEntrega() : "Dirección no especificada";
     }
 
     public Cobro obtenerCobroPorId(Long idCobro) {
@@ -143,14 +211,16 @@ public class CobroService {
         return cobroRepository.save(cobro);
     }
 
-    private double calcularTotalEnvio(Set<OrdenProductoDTO> orderProducts, String ubicacionEntrega) {
-        double costoBasePorProducto = 5.0;
-        double costoDistancia = ubicacionEntrega != null ? ubicacionEntrega.length() * 0.5 : 0.0;
-        double costoTotalProductos = orderProducts.stream().mapToInt(OrdenProductoDTO::getCantidad).sum() * costoBasePorProducto;
-        return costoTotalProductos + costoDistancia;
+    private double calcularTotalEnvio(int unidades, String ubicacionEntrega) {
+        return tarifasEnvio.cotizar(unidades, ubicacionEntrega);
     }
 
-    private String generateTransactionId() {
-        return "TXN-" + System.currentTimeMillis();
+    private Cobro repetido(Cobro cobro, Long idOrden) {
+        if (!cobro.getIdOrden().equals(idOrden)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "La clave de idempotencia ya se usó para la orden " + cobro.getIdOrden());
+        }
+        logger.info("Petición repetida para idOrden {}: se devuelve el cobro {}", idOrden, cobro.getIdCobro());
+        return cobro;
     }
 }
\ No newline at end of file
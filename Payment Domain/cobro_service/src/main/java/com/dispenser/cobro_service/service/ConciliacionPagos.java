@@ -0,0 +1,89 @@
+package com.dispenser.cobro_service.service;
+
+import com.dispenser.cobro_service.model.Cobro;
+import com.dispenser.cobro_service.repository.CobroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Resuelve los cobros que siguen pendientes más allá del plazo del proveedor: por
+ * plazo vencido, error de la llamada o un reinicio del servicio. Se consulta al
+ * proveedor por transaccionId; si no conoce la transacción se reenvía con la misma
+ * referencia, de modo que nunca se cobra dos veces. Una transacción cuya consulta o
+ * reenvío sigue en curso (por ejemplo esperando permiso durante una caída del
+ * proveedor) no se vuelve a encolar en las pasadas siguientes. La primera pasada
+ * corre al arrancar el planificador.
+ */
+@Component
+public class ConciliacionPagos {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConciliacionPagos.class);
+
+    @Autowired
+    private CobroRepository cobroRepository;
+
+    @Autowired
+    private CobroService cobroService;
+
+    @Autowired
+    private ProcesadorPagos procesadorPagos;
+
+    @Value("${cobros.proveedor.timeout:10s}")
+    private Duration timeout;
+
+    @Value("${cobros.proveedor.conciliacion.lote:500}")
+    private int tamanoLote;
+
+    // transaccionId con consulta o reenvío todavía en curso
+    private final Set<String> enCurso = ConcurrentHashMap.newKeySet();
+
+    @Scheduled(fixedDelayString = "${cobros.proveedor.conciliacion.intervalo-ms:60000}")
+    public void conciliar() {
+        // Los más recientes pueden tener todavía la llamada en curso
+        LocalDateTime limite = LocalDateTime.now().minus(timeout);
+        long desde = 0L;
+        int consultados = 0;
+        int omitidos = 0;
+        List<Cobro> pendientes;
+        do {
+            pendientes = cobroRepository.findByEstadoAndFechaCobroBeforeAndIdCobroGreaterThanOrderByIdCobroAsc(
+                    Cobro.PENDIENTE, limite, desde, Limit.of(Math.max(tamanoLote, 1)));
+            for (Cobro cobro : pendientes) {
+                desde = cobro.getIdCobro();
+                String transaccionId = cobro.getTransaccionId();
+                if (!enCurso.add(transaccionId)) {
+                    omitidos++;
+                    continue;
+                }
+                consultados++;
+                // El reenvío se lanza desde la respuesta de la consulta, antes de que esta se dé por terminada
+                AtomicReference<CompletableFuture<Void>> reenvio = new AtomicReference<>(CompletableFuture.completedFuture(null));
+                procesadorPagos.consultarCuandoHayaPermiso(transaccionId, resultado -> {
+                    if (resultado != null) {
+                        cobroService.finalizarPago(cobro.getIdCobro(), transaccionId, resultado);
+                    } else {
+                        logger.info("El proveedor no recibió la transacción {}; se reenvía", transaccionId);
+                        reenvio.set(cobroService.reenviar(cobro));
+                    }
+                }).thenCompose(consulta -> reenvio.get()).whenComplete((fin, error) -> enCurso.remove(transaccionId));
+            }
+        } while (!pendientes.isEmpty());
+        if (consultados > 0 || omitidos > 0) {
+            logger.info("Conciliación: {} cobros pendientes consultados al proveedor de pagos, {} con la consulta anterior en curso",
+                    consultados, omitidos);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.dispenser.cobro_service.service;
+
+import com.dispenser.cobro_service.dto.CobroDTO;
+import com.dispenser.cobro_service.dto.ErrorCobroDTO;
+import com.dispenser.cobro_service.dto.LiquidacionResultadoDTO;
+import com.dispenser.cobro_service.model.Cobro;
+import com.dispenser.cobro_service.model.OrdenPagable;
+import com.dispenser.cobro_service.repository.CobroRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registro masivo de cobros para los archivos de liquidación de marketplaces. Los
+ * cobros se validan contra el modelo local de órdenes y se insertan en lotes de
+ * cobros.liquidacion.lote, cada uno en su propia transacción y con INSERT agrupados
+ * por JDBC (hibernate.jdbc.batch_size). Un cobro inválido se informa con su posición
+ * y no detiene el resto; los eventos se publican cuando el lote ya está confirmado.
+ * El marketplace ya cobró estos pagos, así que se registran completados sin pasar
+ * por el proveedor de pagos.
+ */
+@Component
+public class LiquidacionCobros {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiquidacionCobros.class);
+
+    @Autowired
+    private CobroService cobroService;
+
+    @Autowired
+    private CobroRepository cobroRepository;
+
+    @Autowired
+    private OrdenesPagables ordenesPagables;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${cobros.liquidacion.lote:500}")
+    private int tamanoLote;
+
+    @Value("${cobros.liquidacion.max-cobros:20000}")
+    private int maxCobros;
+
+    @Value("${cobros.liquidacion.max-errores:1000}")
+    private int maxErrores;
+
+    public LiquidacionResultadoDTO registrar(List<CobroDTO> cobros) {
+        if (cobros.size() > maxCobros) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "La liquidación admite como máximo " + maxCobros + " cobros por petición");
+        }
+        LiquidacionResultadoDTO resultado = new LiquidacionResultadoDTO();
+        resultado.setRecibidos(cobros.size());
+        Set<Long> vistas = new HashSet<>();
+        int lote = Math.max(tamanoLote, 1);
+        for (int i = 0; i < cobros.size(); i += lote) {
+            aplicar(cobros.subList(i, Math.min(i + lote, cobros.size())), i + 1, vistas, resultado);
+        }
+        logger.info("Liquidación procesada: {} recibidos, {} registrados, {} rechazados",
+                resultado.getRecibidos(), resultado.getRegistrados(), resultado.getRechazados());
+        return resultado;
+    }
+
+    private void aplicar(List<CobroDTO> cobros, int primeraPosicion, Set<Long> vistas, LiquidacionResultadoDTO resultado) {
+        List<Long> idsOrden = new ArrayList<>(cobros.size());
+        for (CobroDTO cobro : cobros) {
+            if (cobro != null && cobro.getIdOrden() != null) {
+                idsOrden.add(cobro.getIdOrden());
+            }
+        }
+        // Dos consultas por lote: órdenes del modelo local y órdenes que ya tienen cobro
+        Map<Long, OrdenPagable> ordenes = ordenesPagables.obtenerRegistradas(idsOrden);
+        Set<Long> cobradas = new HashSet<>(cobroRepository.findIdsOrdenCobradas(idsOrden));
+
+        List<Cobro> nuevos = new ArrayList<>(cobros.size());
+        List<Integer> posiciones = new ArrayList<>(cobros.size());
+        for (int i = 0; i < cobros.size(); i++) {
+            CobroDTO dto = cobros.get(i);
+            int posicion = primeraPosicion + i;
+            String error = validar(dto, ordenes, cobradas, vistas);
+            if (error != null) {
+                agregarError(resultado, posicion, dto != null ? dto.getIdOrden() : null, error);
+                continue;
+            }
+            nuevos.add(cobroService.nuevoCobro(ordenes.get(dto.getIdOrden()), dto.getMonto(), dto.getMetodoPago(), null, Cobro.COMPLETADO));
+            posiciones.add(posicion);
+        }
+        if (nuevos.isEmpty()) {
+            return;
+        }
+
+        List<Long> idsNuevos = nuevos.stream().map(Cobro::getIdOrden).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                cobroRepository.saveAll(nuevos);
+                ordenesPagables.marcarPagadas(idsNuevos);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Otra petición cobró alguna de estas órdenes mientras tanto; el lote completo se puede reenviar
+            logger.warn("Lote de liquidación desde la posición {} rechazado por un cobro concurrente", primeraPosicion, e);
+            for (int i = 0; i < nuevos.size(); i++) {
+                agregarError(resultado, posiciones.get(i), nuevos.get(i).getIdOrden(),
+                        "Conflicto con un cobro concurrente de la misma orden; reenviar el cobro");
+            }
+            return;
+        } finally {
+            // Con open-in-view el contexto de persistencia dura toda la petición: se libera por lote
+            entityManager.clear();
+        }
+
+        resultado.setRegistrados(resultado.getRegistrados() + nuevos.size());
+        for (Cobro cobro : nuevos) {
+            cobroService.publicarEventos(cobro, cobroService.ubicacionEntrega(ordenes.get(cobro.getIdOrden())));
+        }
+    }
+
+    private String validar(CobroDTO dto, Map<Long, OrdenPagable> ordenes, Set<Long> cobradas, Set<Long> vistas) {
+        if (dto == null || dto.getIdOrden() == null) {
+            return "idOrden es obligatorio";
+        }
+        if (dto.getMonto() == null || dto.getMonto() <= 0) {
+            return "monto debe ser mayor que cero";
+        }
+        if (!vistas.add(dto.getIdOrden())) {
+            return "La orden aparece más de una vez en la liquidación";
+        }
+        OrdenPagable orden = ordenes.get(dto.getIdOrden());
+        if (orden == null) {
+            return "Orden no registrada en cobro-service";
+        }
+        if (!OrdenPagable.PENDIENTE.equals(orden.getEstado()) || cobradas.contains(dto.getIdOrden())) {
+            return "La orden ya ha sido pagada";
+        }
+        return null;
+    }
+
+    private void agregarError(LiquidacionResultadoDTO resultado, int posicion, Long idOrden, String mensaje) {
+        resultado.setRechazados(resultado.getRechazados() + 1);
+        if (resultado.getErrores().size() < maxErrores) {
+            resultado.getErrores().add(new ErrorCobroDTO(posicion, idOrden, mensaje));
+        }
+    }
+}
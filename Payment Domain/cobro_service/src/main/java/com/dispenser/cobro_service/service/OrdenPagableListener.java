@@ -0,0 +1,61 @@
+package com.dispenser.cobro_service.service;
+
+import com.dispenser.cobro_service.config.RabbitMQConfig;
+import com.dispenser.cobro_service.event.ClienteUpdatedEvent;
+import com.dispenser.cobro_service.event.CobroCompletedEvent;
+import com.dispenser.cobro_service.event.DispatchScheduledEvent;
+import com.dispenser.cobro_service.event.OrderCreatedEvent;
+import com.dispenser.cobro_service.model.OrdenPagableLinea;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Mantiene orden_pagable; los errores se propagan para que el contenedor reintente
+@Component
+public class OrdenPagableListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrdenPagableListener.class);
+
+    @Autowired
+    private OrdenesPagables ordenesPagables;
+
+    @RabbitListener(queues = RabbitMQConfig.ORDER_CREATED_QUEUE)
+    public void handleOrderCreated(OrderCreatedEvent event) {
+        if (event.getOrderId() == null) {
+            logger.error("Evento order.created sin idOrden");
+            return;
+        }
+        List<OrdenPagableLinea> lineas = event.getItems() == null ? List.of() : event.getItems().stream()
+                .filter(item -> item.getItemId() != null && item.getQuantity() != null)
+                .map(item -> new OrdenPagableLinea(item.getItemId(), item.getQuantity()))
+                .toList();
+        ordenesPagables.registrar(event.getOrderId(), event.getCustomerId(), event.getDeliveryAddress(), lineas);
+        logger.info("Orden {} registrada como pendiente de cobro", event.getOrderId());
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.CLIENTE_UPDATED_QUEUE)
+    public void handleClienteUpdated(ClienteUpdatedEvent event) {
+        // Los eventos sin dirección no cambian nada aquí
+        if (event.getClientId() != null && event.getAddress() != null) {
+            ordenesPagables.actualizarDireccion(event.getClientId(), event.getAddress());
+        }
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.COBRO_COMPLETED_QUEUE)
+    public void handleCobroCompleted(CobroCompletedEvent event) {
+        if (event.getOrderId() != null && ordenesPagables.marcarPagada(event.getOrderId())) {
+            logger.info("Orden {} marcada como pagada", event.getOrderId());
+        }
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.DISPATCH_UPDATED_QUEUE)
+    public void handleDispatchScheduled(DispatchScheduledEvent event) {
+        if (event.getOrderId() != null && ordenesPagables.marcarDespachada(event.getOrderId())) {
+            logger.info("Orden {} marcada como despachada", event.getOrderId());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.dispenser.cobro_service.service;
+
+import com.dispenser.cobro_service.dto.OrdenDTO;
+import com.dispenser.cobro_service.model.OrdenPagable;
+import com.dispenser.cobro_service.model.OrdenPagableLinea;
+import com.dispenser.cobro_service.repository.OrdenPagableRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modelo de lectura de las órdenes por cobrar (orden_pagable). Se alimenta de
+ * order.created, cliente.updated, cobro.completed y dispatch.updated, así que
+ * crearCobro no necesita consultar ORDERS-SERVICE ni DISPATCH-SERVICE. Si el evento
+ * de una orden todavía no llegó se consulta ORDERS-SERVICE una vez y se guarda.
+ */
+@Service
+public class OrdenesPagables {
+    private static final Logger logger = LoggerFactory.getLogger(OrdenesPagables.class);
+
+    private final String ORDERS_SERVICE_URL = "http://ORDERS-SERVICE/api/ordenes/";
+
+    @Autowired
+    private OrdenPagableRepository ordenPagableRepository;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    // Idempotente: una reentrega o una orden ya cargada desde ORDERS-SERVICE no se sobrescriben
+    public void registrar(Long idOrden, Long idCliente, String direccionEntrega, List<OrdenPagableLinea> lineas) {
+        if (ordenPagableRepository.existsById(idOrden)) {
+            return;
+        }
+        ordenPagableRepository.save(new OrdenPagable(idOrden, idCliente, direccionEntrega,
+                OrdenPagable.PENDIENTE, LocalDateTime.now(), new ArrayList<>(lineas)));
+    }
+
+    public OrdenPagable obtener(Long idOrden) {
+        return ordenPagableRepository.findById(idOrden).orElseGet(() -> cargarDesdeOrdenes(idOrden));
+    }
+
+    @Transactional
+    public void actualizarDireccion(Long idCliente, String direccion) {
+        int actualizadas = ordenPagableRepository.actualizarDireccion(idCliente, direccion, LocalDateTime.now());
+        logger.info("Dirección actualizada en {} órdenes pendientes del cliente {}", actualizadas, idCliente);
+    }
+
+    @Transactional
+    public boolean marcarPagada(Long idOrden) {
+        return ordenPagableRepository.cambiarEstado(idOrden, List.of(OrdenPagable.PENDIENTE),
+                OrdenPagable.PAGADA, LocalDateTime.now()) > 0;
+    }
+
+    // Para los lotes de liquidación: una sola sentencia por lote
+    @Transactional
+    public int marcarPagadas(Collection<Long> idsOrden) {
+        return ordenPagableRepository.cambiarEstadoTodas(idsOrden, List.of(OrdenPagable.PENDIENTE),
+                OrdenPagable.PAGADA, LocalDateTime.now());
+    }
+
+    // Solo las que ya están en el modelo local; no se consulta ORDERS-SERVICE
+    public Map<Long, OrdenPagable> obtenerRegistradas(Collection<Long> idsOrden) {
+        Map<Long, OrdenPagable> ordenes = new HashMap<>();
+        ordenPagableRepository.findByIdOrdenIn(idsOrden).forEach(orden -> ordenes.put(orden.getIdOrden(), orden));
+        return ordenes;
+    }
+
+    @Transactional
+    public boolean marcarDespachada(Long idOrden) {
+        return ordenPagableRepository.cambiarEstado(idOrden, List.of(OrdenPagable.PENDIENTE, OrdenPagable.PAGADA),
+                OrdenPagable.DESPACHADA, LocalDateTime.now()) > 0;
+    }
+
+    private OrdenPagable cargarDesdeOrdenes(Long idOrden) {
+        logger.info("Orden {} sin copia local; se consulta ORDERS-SERVICE", idOrden);
+        OrdenDTO orden;
+        try {
+            orden = restTemplate.getForObject(ORDERS_SERVICE_URL + idOrden, OrdenDTO.class);
+        } catch (HttpClientErrorException.NotFound e) {
+            orden = null;
+        } catch (RestClientException e) {
+            logger.error("Excepción al consultar la orden con ID {}: {}", idOrden, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error al obtener la orden", e);
+        }
+        if (orden == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Orden no encontrada con ID: " + idOrden);
+        }
+
+        List<OrdenPagableLinea> lineas = new ArrayList<>();
+        if (orden.getOrderProducts() != null) {
+            orden.getOrderProducts().forEach(op -> lineas.add(new OrdenPagableLinea(op.getIdProducto(), op.getCantidad())));
+        }
+        try {
+            registrar(idOrden,
+                    orden.getCliente() != null ? orden.getCliente().getIdCliente() : null,
+                    orden.getCliente() != null ? orden.getCliente().getDireccion() : null,
+                    lineas);
+        } catch (DataIntegrityViolationException e) {
+            // El evento order.created la guardó al mismo tiempo
+            logger.info("Orden {} registrada en paralelo por order.created", idOrden);
+        }
+        return ordenPagableRepository.findById(idOrden)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Orden no encontrada con ID: " + idOrden));
+    }
+}
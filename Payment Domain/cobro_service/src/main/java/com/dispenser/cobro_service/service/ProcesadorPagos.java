@@ -0,0 +1,135 @@
+package com.dispenser.cobro_service.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Llama al ProveedorPago fuera del hilo de la petición, en hilos virtuales. Un
+ * semáforo limita las llamadas en curso (bulkhead): si está lleno, el cobro no se
+ * acepta y la petición recibe 503 en lugar de acumular trabajo. Cada llamada tiene
+ * un plazo; al vencer se interrumpe, pero el resultado no se da por fallido: el
+ * proveedor pudo haber cobrado, así que el cobro sigue pendiente y ConciliacionPagos
+ * consulta su estado más tarde. Lo mismo ocurre si la llamada termina en error.
+ */
+@Component
+public class ProcesadorPagos {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcesadorPagos.class);
+
+    private final ProveedorPago proveedorPago;
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permisos;
+    private final Duration timeout;
+
+    public ProcesadorPagos(ProveedorPago proveedorPago,
+                           @Value("${cobros.proveedor.max-concurrentes:200}") int maxConcurrentes,
+                           @Value("${cobros.proveedor.timeout:10s}") Duration timeout) {
+        this.proveedorPago = proveedorPago;
+        this.permisos = new Semaphore(Math.max(maxConcurrentes, 1));
+        this.timeout = timeout;
+    }
+
+    public boolean reservar() {
+        return permisos.tryAcquire();
+    }
+
+    public void liberar() {
+        permisos.release();
+    }
+
+    // Requiere un permiso tomado con reservar(); alTerminar solo recibe respuestas del proveedor
+    public void enviar(SolicitudPago solicitud, Consumer<ResultadoPago> alTerminar) {
+        ejecutar(solicitud.getTransaccionId(), () -> proveedorPago.cobrar(solicitud), alTerminar, new CompletableFuture<>());
+    }
+
+    // Para la conciliación y pruebas de carga: espera un permiso en lugar de rechazar.
+    // El futuro se completa al terminar la llamada, con respuesta, error o plazo vencido
+    public CompletableFuture<Void> enviarCuandoHayaPermiso(SolicitudPago solicitud, Consumer<ResultadoPago> alTerminar) {
+        return esperarPermiso(solicitud.getTransaccionId(), () -> proveedorPago.cobrar(solicitud), alTerminar);
+    }
+
+    // alTerminar recibe null si el proveedor no conoce la transacción
+    public CompletableFuture<Void> consultarCuandoHayaPermiso(String transaccionId, Consumer<ResultadoPago> alTerminar) {
+        return esperarPermiso(transaccionId, () -> proveedorPago.consultar(transaccionId), alTerminar);
+    }
+
+    private CompletableFuture<Void> esperarPermiso(String transaccionId, Callable<ResultadoPago> llamada,
+                                                   Consumer<ResultadoPago> alTerminar) {
+        CompletableFuture<Void> fin = new CompletableFuture<>();
+        try {
+            ejecutor.submit(() -> {
+                try {
+                    permisos.acquire();
+                } catch (InterruptedException e) {
+                    fin.complete(null);
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                ejecutar(transaccionId, llamada, alTerminar, fin);
+            });
+        } catch (RejectedExecutionException e) {
+            fin.complete(null);
+            logger.warn("Llamada al proveedor de pagos descartada: el servicio se está deteniendo");
+        }
+        return fin;
+    }
+
+    private void ejecutar(String transaccionId, Callable<ResultadoPago> llamada, Consumer<ResultadoPago> alTerminar,
+                          CompletableFuture<Void> fin) {
+        try {
+            ejecutor.submit(() -> {
+                try {
+                    Future<ResultadoPago> respuesta = ejecutor.submit(llamada);
+                    ResultadoPago resultado;
+                    try {
+                        resultado = respuesta.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        respuesta.cancel(true);
+                        logger.warn("Sin respuesta del proveedor para la transacción {} en {}; queda pendiente de conciliación",
+                                transaccionId, timeout);
+                        return;
+                    } catch (ExecutionException e) {
+                        logger.error("Error del proveedor para la transacción {}; queda pendiente de conciliación",
+                                transaccionId, e.getCause());
+                        return;
+                    }
+                    alTerminar.accept(resultado);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    logger.error("No se pudo registrar el resultado de la transacción {}", transaccionId, e);
+                } finally {
+                    permisos.release();
+                    fin.complete(null);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Servicio deteniéndose: el cobro queda pendiente y se concilia al arrancar
+            permisos.release();
+            fin.complete(null);
+            logger.warn("Transacción {} no enviada al proveedor: el servicio se está deteniendo", transaccionId);
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        // Espera a que terminen las llamadas en curso y el registro de sus resultados
+        ejecutor.close();
+    }
+}
@@ -0,0 +1,17 @@
+package com.dispenser.cobro_service.service;
+
+/**
+ * Pasarela de pagos externa (PSP). Las implementaciones pueden bloquear: ProcesadorPagos
+ * las invoca desde hilos virtuales, con un límite de llamadas simultáneas y un plazo.
+ * La transacción de la solicitud es la referencia idempotente ante el proveedor: un
+ * cobro reintentado o reenviado conserva su transaccionId, y el proveedor no debe
+ * cobrar dos veces una transacción ya aprobada.
+ */
+public interface ProveedorPago {
+
+    // Un rechazo del proveedor se devuelve como ResultadoPago; una excepción deja el resultado sin determinar
+    ResultadoPago cobrar(SolicitudPago solicitud);
+
+    // Estado de una transacción ya enviada, o null si el proveedor no la recibió
+    ResultadoPago consultar(String transaccionId);
+}
@@ -0,0 +1,83 @@
+package com.dispenser.cobro_service.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * PSP local para desarrollo y pruebas de carga: responde tras una latencia
+ * configurable (base + variación aleatoria) y rechaza o falla una fracción de los
+ * pagos. Como un PSP real, decide el resultado al recibir la solicitud y lo guarda
+ * por transacción: una transacción aprobada no se vuelve a cobrar si se reenvía, y
+ * las que terminaron en error o por plazo se pueden consultar después.
+ */
+@Component
+@ConditionalOnProperty(name = "cobros.proveedor.tipo", havingValue = "simulado", matchIfMissing = true)
+public class ProveedorPagoSimulado implements ProveedorPago {
+
+    private static final int MAX_RESULTADOS = 100_000;
+
+    private final Duration latencia;
+    private final Duration variacion;
+    // Fracción de pagos rechazados (fallido con motivo)
+    private final double tasaRechazo;
+    // Fracción de llamadas que terminan en error después de decidir el resultado
+    private final double tasaError;
+
+    private final Map<String, ResultadoPago> resultados = Collections.synchronizedMap(
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ResultadoPago> eldest) {
+                    return size() > MAX_RESULTADOS;
+                }
+            });
+
+    public ProveedorPagoSimulado(@Value("${cobros.proveedor.simulado.latencia:200ms}") Duration latencia,
+                                 @Value("${cobros.proveedor.simulado.variacion:100ms}") Duration variacion,
+                                 @Value("${cobros.proveedor.simulado.tasa-rechazo:0.05}") double tasaRechazo,
+                                 @Value("${cobros.proveedor.simulado.tasa-error:0.0}") double tasaError) {
+        this.latencia = latencia;
+        this.variacion = variacion;
+        this.tasaRechazo = tasaRechazo;
+        this.tasaError = tasaError;
+    }
+
+    @Override
+    public ResultadoPago cobrar(SolicitudPago solicitud) {
+        // Un rechazo previo no impide reintentar; una aprobación previa se devuelve sin cobrar otra vez
+        ResultadoPago resultado = resultados.compute(solicitud.getTransaccionId(),
+                (transaccionId, previo) -> previo != null && previo.isAprobado() ? previo : decidir(transaccionId));
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long espera = latencia.toMillis() + (variacion.toMillis() > 0 ? random.nextLong(variacion.toMillis() + 1) : 0);
+        try {
+            Thread.sleep(espera);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pago simulado interrumpido", e);
+        }
+
+        if (random.nextDouble() < tasaError) {
+            throw new IllegalStateException("Proveedor simulado no disponible");
+        }
+        return resultado;
+    }
+
+    @Override
+    public ResultadoPago consultar(String transaccionId) {
+        return resultados.get(transaccionId);
+    }
+
+    private ResultadoPago decidir(String transaccionId) {
+        if (ThreadLocalRandom.current().nextDouble() < tasaRechazo) {
+            return ResultadoPago.rechazado("Pago rechazado por el proveedor simulado");
+        }
+        return ResultadoPago.aprobado("SIM-" + transaccionId);
+    }
+}
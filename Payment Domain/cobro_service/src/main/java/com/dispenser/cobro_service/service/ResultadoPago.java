@@ -0,0 +1,21 @@
+package com.dispenser.cobro_service.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ResultadoPago {
+    private final boolean aprobado;
+    // Identificador del pago en el proveedor (solo si se aprobó)
+    private final String referencia;
+    private final String motivo;
+
+    public static ResultadoPago aprobado(String referencia) {
+        return new ResultadoPago(true, referencia, null);
+    }
+
+    public static ResultadoPago rechazado(String motivo) {
+        return new ResultadoPago(false, null, motivo);
+    }
+}
@@ -0,0 +1,14 @@
+package com.dispenser.cobro_service.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SolicitudPago {
+    private final String transaccionId;
+    private final Long idOrden;
+    private final Double monto;
+    private final String moneda;
+    private final String metodoPago;
+}
@@ -0,0 +1,59 @@
+package com.dispenser.cobro_service.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IDs de transacción de 64 bits: milisegundos desde 2024-01-01 (41 bits), nodo
+ * (10 bits) y secuencia dentro del milisegundo (12 bits). En cada instancia son
+ * estrictamente crecientes aunque el reloj retroceda; entre instancias no chocan
+ * porque cada una tiene un nodo distinto (cobros.transacciones.nodo, obligatorio). Se
+ * formatean en hexadecimal de ancho fijo, así el orden alfabético es el numérico.
+ */
+@Component
+public class TransaccionIdGenerator {
+
+    private static final long EPOCH = 1704067200000L;
+    private static final int BITS_NODO = 10;
+    private static final int BITS_SECUENCIA = 12;
+    private static final long MAX_SECUENCIA = (1L << BITS_SECUENCIA) - 1;
+    private static final long MAX_NODO = (1L << BITS_NODO) - 1;
+
+    private final long nodo;
+    private final AtomicLong ultimo = new AtomicLong();
+
+    // El nodo es obligatorio: uno al azar o recortado podría repetirse en otra réplica y dar IDs iguales
+    public TransaccionIdGenerator(@Value("${cobros.transacciones.nodo:-1}") long nodo) {
+        if (nodo < 0 || nodo > MAX_NODO) {
+            throw new IllegalStateException("cobros.transacciones.nodo debe ser un número de 0 a " + MAX_NODO
+                    + " distinto en cada réplica (variable de entorno COBROS_TRANSACCIONES_NODO); valor: " + nodo);
+        }
+        this.nodo = nodo;
+    }
+
+    public String siguiente() {
+        long actual;
+        long nuevo;
+        do {
+            actual = ultimo.get();
+            long marca = System.currentTimeMillis() - EPOCH;
+            long ultimaMarca = actual >>> (BITS_NODO + BITS_SECUENCIA);
+            long secuencia = actual & MAX_SECUENCIA;
+            if (marca > ultimaMarca) {
+                nuevo = componer(marca, 0);
+            } else if (secuencia < MAX_SECUENCIA) {
+                nuevo = componer(ultimaMarca, secuencia + 1);
+            } else {
+                // Secuencia agotada en este milisegundo: se toma el siguiente
+                nuevo = componer(ultimaMarca + 1, 0);
+            }
+        } while (!ultimo.compareAndSet(actual, nuevo));
+        return String.format("TXN-%016X", nuevo);
+    }
+
+    private long componer(long marca, long secuencia) {
+        return (marca << (BITS_NODO + BITS_SECUENCIA)) | (nodo << BITS_SECUENCIA) | secuencia;
+    }
+}
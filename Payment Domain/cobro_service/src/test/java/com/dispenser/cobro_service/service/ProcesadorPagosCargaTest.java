@@ -0,0 +1,123 @@
+package com.dispenser.cobro_service.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Prueba de carga contra un proveedor lento: el rendimiento lo fija el bulkhead, no la latencia
+class ProcesadorPagosCargaTest {
+
+    private static final int PAGOS = 2_000;
+    private static final int MAX_CONCURRENTES = 500;
+    private static final Duration LATENCIA = Duration.ofMillis(200);
+
+    private ProcesadorPagos procesador;
+
+    @AfterEach
+    void tearDown() {
+        if (procesador != null) {
+            procesador.detener();
+        }
+    }
+
+    @Test
+    void conUnProveedorLentoHayTantasLlamadasEnCursoComoPermiteElBulkhead() throws InterruptedException {
+        ProveedorPagoSimulado simulado = new ProveedorPagoSimulado(LATENCIA, Duration.ofMillis(50), 0.05, 0.0);
+        AtomicInteger enCurso = new AtomicInteger();
+        AtomicInteger pico = new AtomicInteger();
+        ProveedorPago proveedor = new ProveedorPago() {
+            @Override
+            public ResultadoPago cobrar(SolicitudPago solicitud) {
+                pico.accumulateAndGet(enCurso.incrementAndGet(), Math::max);
+                try {
+                    return simulado.cobrar(solicitud);
+                } finally {
+                    enCurso.decrementAndGet();
+                }
+            }
+
+            @Override
+            public ResultadoPago consultar(String transaccionId) {
+                return simulado.consultar(transaccionId);
+            }
+        };
+        procesador = new ProcesadorPagos(proveedor, MAX_CONCURRENTES, Duration.ofSeconds(5));
+        CountDownLatch pendientes = new CountDownLatch(PAGOS);
+        AtomicInteger aprobados = new AtomicInteger();
+
+        for (int i = 0; i < PAGOS; i++) {
+            procesador.enviarCuandoHayaPermiso(solicitud(i), resultado -> {
+                if (resultado.isAprobado()) {
+                    aprobados.incrementAndGet();
+                }
+                pendientes.countDown();
+            });
+        }
+
+        // Las llamadas lentas se solapan hasta el límite y nunca lo superan; en serie el pico sería 1
+        assertThat(pendientes.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(pico.get()).isEqualTo(MAX_CONCURRENTES);
+        assertThat(aprobados.get()).isGreaterThan(PAGOS * 8 / 10);
+    }
+
+    @Test
+    void elBulkheadRechazaCuandoEstaLleno() {
+        procesador = new ProcesadorPagos(new ProveedorPagoSimulado(LATENCIA, Duration.ZERO, 0.0, 0.0), 2, Duration.ofSeconds(1));
+
+        assertThat(procesador.reservar()).isTrue();
+        assertThat(procesador.reservar()).isTrue();
+        assertThat(procesador.reservar()).isFalse();
+        procesador.liberar();
+        assertThat(procesador.reservar()).isTrue();
+    }
+
+    @Test
+    void sinRespuestaEnPlazoNoSeDaPorFallidoYSePuedeConciliar() throws InterruptedException {
+        ProveedorPagoSimulado proveedor = new ProveedorPagoSimulado(Duration.ofSeconds(2), Duration.ZERO, 0.0, 0.0);
+        procesador = new ProcesadorPagos(proveedor, 10, Duration.ofMillis(100));
+        AtomicInteger respuestas = new AtomicInteger();
+
+        assertThat(procesador.reservar()).isTrue();
+        procesador.enviar(solicitud(1), resultado -> respuestas.incrementAndGet());
+        Thread.sleep(500);
+
+        assertThat(respuestas.get()).isZero();
+        // El proveedor ya decidió el pago: la conciliación lo encuentra por transaccionId
+        assertThat(proveedor.consultar("TXN-1").isAprobado()).isTrue();
+        // El plazo libera el permiso aunque la llamada no haya respondido
+        assertThat(procesador.reservar()).isTrue();
+    }
+
+    @Test
+    void laConsultaTerminaAunqueVenzaElPlazo() throws Exception {
+        procesador = new ProcesadorPagos(new ProveedorPagoSimulado(Duration.ofSeconds(2), Duration.ZERO, 0.0, 0.0),
+                1, Duration.ofMillis(100));
+        AtomicInteger respuestas = new AtomicInteger();
+
+        // La conciliación libera la transacción al terminar la consulta, haya respuesta o no
+        procesador.enviarCuandoHayaPermiso(solicitud(3), resultado -> respuestas.incrementAndGet()).get(5, TimeUnit.SECONDS);
+
+        assertThat(respuestas.get()).isZero();
+        assertThat(procesador.reservar()).isTrue();
+    }
+
+    @Test
+    void unaTransaccionAprobadaNoSeCobraDosVeces() {
+        ProveedorPagoSimulado proveedor = new ProveedorPagoSimulado(Duration.ZERO, Duration.ZERO, 0.0, 0.0);
+
+        ResultadoPago primero = proveedor.cobrar(solicitud(7));
+        ResultadoPago reenvio = proveedor.cobrar(solicitud(7));
+
+        assertThat(reenvio).isSameAs(primero);
+    }
+
+    private static SolicitudPago solicitud(int i) {
+        return new SolicitudPago("TXN-" + i, (long) i, 10.0, "USD", "tarjeta");
+    }
+}
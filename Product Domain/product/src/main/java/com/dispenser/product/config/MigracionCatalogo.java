@@ -0,0 +1,68 @@
+package com.dispenser.product.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Ajustes de esquema que ddl-auto=update no hace: convierte producto.precio de texto
+ * a numeric (las tablas creadas antes del cambio de tipo) y crea el índice de
+ * expresión para las búsquedas por prefijo de nombre. Ambos pasos son idempotentes.
+ * Los precios de texto que no caben en numeric(12,2) se archivan en
+ * producto_precio_descartado y quedan en NULL, en vez de abortar el arranque.
+ */
+@Component
+public class MigracionCatalogo {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigracionCatalogo.class);
+
+    private static final String TIPO_PRECIO_SQL =
+            "SELECT data_type FROM information_schema.columns "
+                    + "WHERE table_schema = current_schema() AND table_name = 'producto' AND column_name = 'precio'";
+    // Descarta símbolos como "$" y deja dígitos y separadores. El último separador seguido de 1 o 2 dígitos
+    // es el decimal y los demás son de miles: "1,234.56", "1.234,56" y "1234.56" dan 1234.56, "12,50"
+    // da 12.50 y "1,234" da 1234. Un texto vacío queda como NULL
+    private static final String PRECIO_NORMALIZADO =
+            "NULLIF(replace(regexp_replace(regexp_replace(regexp_replace(trim(precio), '[^0-9.,]', '', 'g'), "
+                    + "'[.,]([0-9]{1,2})$', 'D\\1'), '[.,]', '', 'g'), 'D', '.'), '')";
+    private static final String CREAR_DESCARTADOS_SQL =
+            "CREATE TABLE IF NOT EXISTS producto_precio_descartado (id_producto bigint NOT NULL, "
+                    + "precio text, fecha_migracion timestamp NOT NULL DEFAULT now())";
+    // Más de 10 dígitos enteros no caben en numeric(12,2): se archiva el texto original y el precio queda NULL
+    private static final String DESCARTAR_PRECIOS_SQL =
+            "WITH descartados AS (INSERT INTO producto_precio_descartado (id_producto, precio) "
+                    + "SELECT id_producto, precio FROM producto "
+                    + "WHERE length(ltrim(split_part(" + PRECIO_NORMALIZADO + ", '.', 1), '0')) > 10 RETURNING id_producto) "
+                    + "UPDATE producto p SET precio = NULL FROM descartados d WHERE p.id_producto = d.id_producto";
+    private static final String CONVERTIR_PRECIO_SQL =
+            "ALTER TABLE producto ALTER COLUMN precio TYPE numeric(12,2) USING " + PRECIO_NORMALIZADO + "::numeric(12,2)";
+    private static final String INDICE_NOMBRE_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_producto_nombre_prefijo ON producto (lower(nombre) text_pattern_ops)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void migrar() {
+        List<String> tipo = jdbcTemplate.queryForList(TIPO_PRECIO_SQL, String.class);
+        if (tipo.isEmpty()) {
+            // Tabla aún no creada: Hibernate la crea ya con precio numérico
+            return;
+        }
+        if (tipo.get(0).equals("character varying") || tipo.get(0).equals("text")) {
+            jdbcTemplate.execute(CREAR_DESCARTADOS_SQL);
+            int descartados = jdbcTemplate.update(DESCARTAR_PRECIOS_SQL);
+            if (descartados > 0) {
+                logger.warn("{} precios fuera de rango movidos a producto_precio_descartado y puestos a NULL", descartados);
+            }
+            jdbcTemplate.execute(CONVERTIR_PRECIO_SQL);
+            logger.info("producto.precio convertido a numeric(12,2)");
+        }
+        jdbcTemplate.execute(INDICE_NOMBRE_SQL);
+    }
+}
@@ -1,6 +1,15 @@
 package com.dispenser.product.config;
 
+import com.dispenser.commons.amqp.DlqMessageRecoverer;
+import com.dispenser.commons.amqp.EventoMessageConverter;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageRecoverer;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -10,9 +19,52 @@ public class RabbitMQConfig {
     public static final String PRODUCT_CREATED_EXCHANGE = "product.created.exchange";
     public static final String ROUTING_KEY = "product.created";
 
-    public static final String ORDER_PRODUCTS_QUEUE = "order.products.queue";
-    public static final String ORDER_PRODUCTS_EXCHANGE = "order.products.exchange";
-    public static final String ORDER_PRODUCTS_ROUTING_KEY = "order.products";
+    public static final String ORDER_CREATED_QUEUE = "product.order.created.queue";
+    public static final String ORDER_EVENTS_EXCHANGE = "order.events.exchange";
+    public static final String ORDER_CREATED_ROUTING_KEY = "order.created";
+
+    public static final String COBRO_COMPLETED_EXCHANGE = "cobro.completed.exchange";
+    public static final String COBRO_COMPLETED_ROUTING_KEY = "cobro.completed";
+    public static final String COBRO_COMPLETED_QUEUE = "product.cobro.completed.queue";
+
+    public static final String STOCK_EVENTS_EXCHANGE = "stock.events.exchange";
+    public static final String STOCK_MOVEMENT_ROUTING_KEY = "stock.movement";
+
+    public static final String DLX_EXCHANGE = "product.dlx";
+
+    @Bean
+    public MessageConverter eventoMessageConverter() {
+        return new EventoMessageConverter();
+    }
+
+    // Mensajes que agotan los reintentos: se republican en <cola>.dlq en lugar de descartarse
+    @Bean
+    public MessageRecoverer dlqMessageRecoverer(RabbitTemplate rabbitTemplate) {
+        return new DlqMessageRecoverer(rabbitTemplate, DLX_EXCHANGE);
+    }
+
+    @Bean
+    public Declarables deadLetterDeclarables() {
+        return DlqMessageRecoverer.declarables(DLX_EXCHANGE, ORDER_CREATED_QUEUE, COBRO_COMPLETED_QUEUE);
+    }
+
+    // Consumo en micro-lotes para los eventos de stock; hereda converter y reintentos de spring.rabbitmq.listener.simple
+    @Bean
+    public SimpleRabbitListenerContainerFactory stockBatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${productos.listener.stock.prefetch:250}") int prefetch,
+            @Value("${productos.listener.stock.batch-size:100}") int batchSize,
+            @Value("${productos.listener.stock.receive-timeout-ms:200}") long receiveTimeoutMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        return factory;
+    }
 
     @Bean
     public Queue productCreatedQueue() {
@@ -33,20 +85,43 @@ public class RabbitMQConfig {
     }
 
     @Bean
-    public DirectExchange orderProductsExchange() {
-        return new DirectExchange(ORDER_PRODUCTS_EXCHANGE);
+    public TopicExchange orderEventsExchange() {
+        return new TopicExchange(ORDER_EVENTS_EXCHANGE);
+    }
+
+    @Bean
+    public Queue orderCreatedQueue() {
+        return QueueBuilder.durable(ORDER_CREATED_QUEUE).build();
+    }
+
+    @Bean
+    public Binding orderCreatedBinding(Queue orderCreatedQueue, TopicExchange orderEventsExchange) {
+        return BindingBuilder
+                .bind(orderCreatedQueue)
+                .to(orderEventsExchange)
+                .with(ORDER_CREATED_ROUTING_KEY);
+    }
+
+    @Bean
+    public DirectExchange cobroCompletedExchange() {
+        return new DirectExchange(COBRO_COMPLETED_EXCHANGE);
     }
 
     @Bean
-    public Queue orderProductsQueue() {
-        return QueueBuilder.durable(ORDER_PRODUCTS_QUEUE).build();
+    public Queue cobroCompletedQueue() {
+        return QueueBuilder.durable(COBRO_COMPLETED_QUEUE).build();
     }
 
     @Bean
-    public Binding orderProductsBinding(Queue orderProductsQueue, DirectExchange orderProductsExchange) {
+    public Binding cobroCompletedBinding(Queue cobroCompletedQueue, DirectExchange cobroCompletedExchange) {
         return BindingBuilder
-                .bind(orderProductsQueue)
-                .to(orderProductsExchange)
-                .with(ORDER_PRODUCTS_ROUTING_KEY);
+                .bind(cobroCompletedQueue)
+                .to(cobroCompletedExchange)
+                .with(COBRO_COMPLETED_ROUTING_KEY);
+    }
+
+    @Bean
+    public TopicExchange stockEventsExchange() {
+        return new TopicExchange(STOCK_EVENTS_EXCHANGE);
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,21 @@
 package com.dispenser.product.controller;
 
 import com.dispenser.product.model.Producto;
+import com.dispenser.product.model.ReservaLinea;
+import com.dispenser.product.model.ReservaStock;
 import com.dispenser.product.service.ProductoService;
+import com.dispenser.product.service.ReservaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.math.BigDecimal;
 import java.nio.file.*;
 import java.util.*;
 
@@ -17,6 +26,9 @@ public class ProductoController {
     @Autowired
     private ProductoService productoService;
 
+    @Autowired
+    private ReservaService reservaService;
+
     // -----------------------------
     // CRUD Productos
     // -----------------------------
@@ -31,16 +43,74 @@ public class ProductoController {
         return productoService.obtenerTodosLosProductos();
     }
 
+    // Catálogo paginado: ?categoria=&nombre=(prefijo)&precioMin=&precioMax=&page=&size=&sort=precio,asc
+    @GetMapping("/catalogo")
+    public Page<Producto> buscarCatalogo(@RequestParam(required = false) String categoria,
+                                         @RequestParam(required = false) String nombre,
+                                         @RequestParam(required = false) BigDecimal precioMin,
+                                         @RequestParam(required = false) BigDecimal precioMax,
+                                         @PageableDefault(size = 24, sort = "nombre") Pageable pageable) {
+        return productoService.buscarCatalogo(categoria, nombre, precioMin, precioMax, pageable);
+    }
+
     @GetMapping("/{id}")
     public Producto obtenerProductoPorId(@PathVariable Long id) {
         return productoService.obtenerProductoPorId(id);
     }
 
+    @PostMapping("/batch")
+    public List<Producto> obtenerProductosPorIds(@RequestBody List<Long> ids) {
+        return productoService.obtenerProductosPorIds(ids);
+    }
+
     @PutMapping("/{id}")
     public Producto actualizarProducto(@PathVariable Long id, @RequestBody Producto productoDetalles) {
         return productoService.actualizarProducto(id, productoDetalles);
     }
 
+    // Stock absoluto de varios productos ({idProducto: stock}); devuelve los IDs actualizados
+    @PutMapping("/stock")
+    public List<Long> fijarStock(@RequestBody Map<Long, Integer> stocks) {
+        try {
+            return productoService.fijarStock(stocks);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // -----------------------------
+    // Reservas de stock
+    // -----------------------------
+
+    // Comprueba y aparta el stock de todas las líneas a la vez; 409 si alguna no alcanza.
+    // Idempotency-Key (opcional): repetir la petición devuelve la reserva original sin apartar stock otra vez
+    @PostMapping("/reservas")
+    public ResponseEntity<ReservaStock> reservarStock(@RequestHeader(value = "Idempotency-Key", required = false) String clave,
+                                                      @RequestBody List<ReservaLinea> lineas) {
+        validarClave(clave);
+        return ResponseEntity.status(201).body(reservaService.reservar(clave, lineas));
+    }
+
+    @DeleteMapping("/reservas/{idReserva}")
+    public ResponseEntity<Void> liberarReserva(@PathVariable Long idReserva) {
+        reservaService.liberar(idReserva);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Por Idempotency-Key: libera la reserva aunque su ID no llegara al llamador, o anula la que aún esté en curso
+    @DeleteMapping("/reservas/clave/{clave}")
+    public ResponseEntity<Void> liberarReservaPorClave(@PathVariable String clave) {
+        validarClave(clave);
+        reservaService.liberarPorClave(clave);
+        return ResponseEntity.noContent().build();
+    }
+
+    private void validarClave(String clave) {
+        if (clave != null && (clave.isBlank() || clave.length() > 64)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key debe tener entre 1 y 64 caracteres");
+        }
+    }
+
     // -----------------------------
     // Subida de imágenes
     // -----------------------------
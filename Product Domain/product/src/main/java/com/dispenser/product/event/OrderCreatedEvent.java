@@ -0,0 +1,32 @@
+package com.dispenser.product.event;
+
+import java.util.List;
+
+public class OrderCreatedEvent {
+    // Clave de idempotencia: se repite en todas las reentregas del mismo evento
+    private String eventId;
+    private Long orderId;
+    private String status;
+    private List<OrderItem> items;
+    // Reserva de stock tomada en PRODUCT-SERVICE al crear la orden (null si no tiene líneas)
+    private Long reservationId;
+
+    public OrderCreatedEvent() {}
+    public OrderCreatedEvent(Long orderId, String status, List<OrderItem> items, Long reservationId) {
+        this.orderId = orderId;
+        this.status = status;
+        this.items = items;
+        this.reservationId = reservationId;
+    }
+
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public List<OrderItem> getItems() { return items; }
+    public void setItems(List<OrderItem> items) { this.items = items; }
+    public Long getReservationId() { return reservationId; }
+    public void setReservationId(Long reservationId) { this.reservationId = reservationId; }
+}
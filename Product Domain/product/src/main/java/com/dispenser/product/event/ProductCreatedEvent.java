@@ -0,0 +1,17 @@
+package com.dispenser.product.event;
+
+public class ProductCreatedEvent {
+    private Long productId;
+    private Integer stock;
+
+    public ProductCreatedEvent() {}
+    public ProductCreatedEvent(Long productId, Integer stock) {
+        this.productId = productId;
+        this.stock = stock;
+    }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public Integer getStock() { return stock; }
+    public void setStock(Integer stock) { this.stock = stock; }
+}
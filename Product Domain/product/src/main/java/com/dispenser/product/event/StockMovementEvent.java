@@ -0,0 +1,22 @@
+package com.dispenser.product.event;
+
+// Stock vigente de un producto tras un movimiento; version crece en cada cambio de producto.stock
+public class StockMovementEvent {
+    private Long productId;
+    private Integer stock;
+    private Long version;
+
+    public StockMovementEvent() {}
+    public StockMovementEvent(Long productId, Integer stock, Long version) {
+        this.productId = productId;
+        this.stock = stock;
+        this.version = version;
+    }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public Integer getStock() { return stock; }
+    public void setStock(Integer stock) { this.stock = stock; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+}
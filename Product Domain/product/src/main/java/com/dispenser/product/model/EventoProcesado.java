@@ -0,0 +1,27 @@
+package com.dispenser.product.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Clave de idempotencia de un evento ya aplicado, para descartar reentregas
+@Entity
+@Table(name = "evento_procesado", indexes = {
+        @Index(name = "idx_evento_procesado_fecha", columnList = "procesado_en")
+})
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventoProcesado {
+    @Id
+    @Column(name = "id_evento", length = 64)
+    private String idEvento;
+
+    @Column(name = "procesado_en", nullable = false)
+    private LocalDateTime procesadoEn;
+}
@@ -6,8 +6,14 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.math.BigDecimal;
+
 @Entity
-@Table(name = "producto")
+@Table(name = "producto", indexes = {
+        @Index(name = "idx_producto_categoria_precio", columnList = "categoria, precio"),
+        @Index(name = "idx_producto_precio", columnList = "precio"),
+        @Index(name = "idx_producto_nombre", columnList = "nombre")
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -19,8 +25,14 @@ public class Producto {
     private Long idProducto;
 
     private String nombre;
-    private String precio;
+    @Column(precision = 12, scale = 2)
+    private BigDecimal precio;
     private Integer stock;
+
+    // Versión del stock: solo la incrementan las sentencias SQL que lo modifican
+    @Column(name = "stock_version", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "bigint not null default 0")
+    private Long stockVersion;
     private String imagenUrl;
     private String categoria;
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.dispenser.product.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Última secuencia del log de reservas ya aplicada a producto.stock
+@Entity
+@Table(name = "reserva_checkpoint")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservaCheckpoint {
+    public static final Integer ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "ultima_secuencia", nullable = false)
+    private Long ultimaSecuencia;
+}
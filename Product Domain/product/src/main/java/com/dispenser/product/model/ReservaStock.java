@@ -0,0 +1,53 @@
+package com.dispenser.product.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Stock apartado para una orden hasta que se cobra o vence la reserva
+@Entity
+@Table(name = "reserva_stock", indexes = {
+        @Index(name = "idx_reserva_stock_estado_expira", columnList = "estado, expira_en"),
+        @Index(name = "idx_reserva_stock_orden", columnList = "id_orden"),
+        @Index(name = "uk_reserva_stock_clave", columnList = "clave", unique = true)
+})
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservaStock {
+    public static final String PENDIENTE = "pendiente";
+    public static final String CONFIRMADA = "confirmada";
+    public static final String LIBERADA = "liberada";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_reserva")
+    private Long idReserva;
+
+    @Column(name = "id_orden")
+    private Long idOrden;
+
+    // Idempotency-Key del llamador (ORDERS-SERVICE envía el eventId de la orden)
+    @Column(name = "clave", length = 64)
+    private String clave;
+
+    @Column(nullable = false)
+    private String estado;
+
+    @Column(name = "creada_en", nullable = false)
+    private LocalDateTime creadaEn;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    @ElementCollection
+    @CollectionTable(name = "reserva_stock_linea", joinColumns = @JoinColumn(name = "id_reserva"))
+    private List<ReservaLinea> lineas = new ArrayList<>();
+}
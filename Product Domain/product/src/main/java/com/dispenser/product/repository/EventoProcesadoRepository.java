@@ -0,0 +1,24 @@
+package com.dispenser.product.repository;
+
+import com.dispenser.product.model.EventoProcesado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface EventoProcesadoRepository extends JpaRepository<EventoProcesado, String> {
+
+    // 0 si la clave ya existía: una entrega concurrente del mismo evento espera y no inserta
+    @Modifying
+    @Query(value = "INSERT INTO evento_procesado (id_evento, procesado_en) VALUES (:idEvento, now()) ON CONFLICT (id_evento) DO NOTHING",
+            nativeQuery = true)
+    int registrar(@Param("idEvento") String idEvento);
+
+    @Modifying
+    @Transactional
+    @Query("delete from EventoProcesado e where e.procesadoEn < :limite")
+    int eliminarAnteriores(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,50 @@
+package com.dispenser.product.repository;
+
+import com.dispenser.product.model.Producto;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+// Filtros del catálogo; cada uno es opcional y se omite si el valor es null o vacío
+public final class ProductoFiltros {
+
+    private ProductoFiltros() {
+    }
+
+    public static Specification<Producto> catalogo(String categoria, String nombre, BigDecimal precioMin, BigDecimal precioMax) {
+        return Specification.allOf(
+                categoria(categoria),
+                nombreEmpiezaPor(nombre),
+                precioDesde(precioMin),
+                precioHasta(precioMax));
+    }
+
+    public static Specification<Producto> categoria(String categoria) {
+        return (root, query, cb) -> categoria == null || categoria.isBlank()
+                ? null
+                : cb.equal(root.get("categoria"), categoria);
+    }
+
+    // lower(nombre) LIKE 'prefijo%' usa idx_producto_nombre_prefijo (text_pattern_ops)
+    public static Specification<Producto> nombreEmpiezaPor(String prefijo) {
+        return (root, query, cb) -> {
+            if (prefijo == null || prefijo.isBlank()) {
+                return null;
+            }
+            String patron = prefijo.strip().toLowerCase(Locale.ROOT)
+                    .replace("\\", "\\\\")
+                    .replace("%", "\\%")
+                    .replace("_", "\\_") + "%";
+            return cb.like(cb.lower(root.<String>get("nombre")), patron, '\\');
+        };
+    }
+
+    public static Specification<Producto> precioDesde(BigDecimal precioMin) {
+        return (root, query, cb) -> precioMin == null ? null : cb.greaterThanOrEqualTo(root.<BigDecimal>get("precio"), precioMin);
+    }
+
+    public static Specification<Producto> precioHasta(BigDecimal precioMax) {
+        return (root, query, cb) -> precioMax == null ? null : cb.lessThanOrEqualTo(root.<BigDecimal>get("precio"), precioMax);
+    }
+}
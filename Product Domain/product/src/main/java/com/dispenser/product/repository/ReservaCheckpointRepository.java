@@ -0,0 +1,7 @@
+package com.dispenser.product.repository;
+
+import com.dispenser.product.model.ReservaCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ReservaCheckpointRepository extends JpaRepository<ReservaCheckpoint, Integer> {
+}
@@ -0,0 +1,35 @@
+package com.dispenser.product.repository;
+
+import com.dispenser.product.model.ReservaStock;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReservaStockRepository extends JpaRepository<ReservaStock, Long> {
+
+    @Override
+    @EntityGraph(attributePaths = "lineas")
+    Optional<ReservaStock> findById(Long idReserva);
+
+    @EntityGraph(attributePaths = "lineas")
+    Optional<ReservaStock> findFirstByIdOrden(Long idOrden);
+
+    @EntityGraph(attributePaths = "lineas")
+    Optional<ReservaStock> findByClave(String clave);
+
+    @EntityGraph(attributePaths = "lineas")
+    List<ReservaStock> findByEstadoAndExpiraEnBeforeOrderByExpiraEn(String estado, LocalDateTime fecha, Limit limit);
+
+    // Transición condicional: solo una de dos operaciones concurrentes sobre la misma reserva la aplica
+    @Modifying
+    @Query("update ReservaStock r set r.estado = :nuevo where r.idReserva = :idReserva and r.estado = :actual")
+    int cambiarEstado(@Param("idReserva") Long idReserva, @Param("actual") String actual, @Param("nuevo") String nuevo);
+
+}
@@ -0,0 +1,124 @@
+package com.dispenser.product.service;
+
+import com.dispenser.product.model.EventoProcesado;
+import com.dispenser.product.repository.EventoProcesadoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registro de eventos ya aplicados. Las claves recientes se guardan en memoria
+ * (LRU acotado) y todas en la tabla evento_procesado, de modo que un duplicado
+ * cuesta como mucho una consulta. registrar() debe llamarse dentro de la misma
+ * transacción que aplica el evento.
+ */
+@Component
+public class EventosProcesados {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventosProcesados.class);
+
+    private static final String REGISTRAR_SQL =
+            "INSERT INTO evento_procesado (id_evento, procesado_en) VALUES (?, now()) ON CONFLICT (id_evento) DO NOTHING";
+
+    private final EventoProcesadoRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Set<String> recientes;
+
+    @Value("${productos.eventos.retencion:7d}")
+    private Duration retencion;
+
+    public EventosProcesados(EventoProcesadoRepository repository,
+                             JdbcTemplate jdbcTemplate,
+                             @Value("${productos.eventos.cache-size:10000}") int maxRecientes) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.recientes = Collections.newSetFromMap(Collections.synchronizedMap(
+                new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                        return size() > maxRecientes;
+                    }
+                }));
+    }
+
+    public boolean yaProcesado(String idEvento) {
+        if (recientes.contains(idEvento)) {
+            return true;
+        }
+        if (repository.existsById(idEvento)) {
+            recientes.add(idEvento);
+            return true;
+        }
+        return false;
+    }
+
+    // Para un lote: una sola consulta para las claves que no están en memoria
+    public Set<String> filtrarProcesados(Collection<String> idsEvento) {
+        Set<String> procesados = new HashSet<>();
+        List<String> consultar = new ArrayList<>();
+        for (String idEvento : idsEvento) {
+            if (recientes.contains(idEvento)) {
+                procesados.add(idEvento);
+            } else {
+                consultar.add(idEvento);
+            }
+        }
+        if (!consultar.isEmpty()) {
+            for (EventoProcesado evento : repository.findAllById(consultar)) {
+                procesados.add(evento.getIdEvento());
+                recientes.add(evento.getIdEvento());
+            }
+        }
+        return procesados;
+    }
+
+    // Lanza EventoDuplicadoException si otra entrega lo registró antes, para deshacer la transacción
+    public void registrar(String idEvento) {
+        if (repository.registrar(idEvento) == 0) {
+            throw new EventoDuplicadoException(idEvento);
+        }
+    }
+
+    public void registrarTodos(List<String> idsEvento) {
+        List<Object[]> parametros = idsEvento.stream().map(idEvento -> new Object[]{idEvento}).toList();
+        int[] filas = jdbcTemplate.batchUpdate(REGISTRAR_SQL, parametros);
+        for (int i = 0; i < filas.length; i++) {
+            if (filas[i] == 0) {
+                throw new EventoDuplicadoException(idsEvento.get(i));
+            }
+        }
+    }
+
+    // Llamar tras el commit
+    public void recordar(String idEvento) {
+        recientes.add(idEvento);
+    }
+
+    @Scheduled(cron = "${productos.eventos.limpieza-cron:0 0 3 * * *}")
+    public void limpiar() {
+        int eliminados = repository.eliminarAnteriores(LocalDateTime.now().minus(retencion));
+        if (eliminados > 0) {
+            logger.info("Eliminadas {} claves de eventos procesados", eliminados);
+        }
+    }
+
+    public static class EventoDuplicadoException extends RuntimeException {
+        public EventoDuplicadoException(String idEvento) {
+            super("Evento ya procesado: " + idEvento);
+        }
+    }
+}
@@ -1,49 +1,112 @@
 package com.dispenser.product.service;
 
 import com.dispenser.product.config.RabbitMQConfig;
-import com.dispenser.product.model.Producto;
-import com.dispenser.product.repository.ProductoRepository;
+import com.dispenser.product.event.CobroCompletedEvent;
+import com.dispenser.product.event.OrderCreatedEvent;
+import com.dispenser.product.event.OrderItem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Component
 public class ProductoMessageListener {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductoMessageListener.class);
 
     @Autowired
-    private ProductoRepository productoRepository;
+    private ProductoService productoService;
 
-    @RabbitListener(queues = RabbitMQConfig.ORDER_PRODUCTS_QUEUE)
-    public void handleOrderProducts(String message) {
-        try {
-            logger.info("Mensaje recibido en la cola {}: {}", RabbitMQConfig.ORDER_PRODUCTS_QUEUE, message);
-
-            String[] productUpdates = message.split(",");
-            for (String update : productUpdates) {
-                String[] parts = update.split(":");
-                if (parts.length == 2) {
-                    Long idProducto = Long.parseLong(parts[0]);
-                    Integer cantidad = Integer.parseInt(parts[1]);
-
-                    Producto producto = productoRepository.findById(idProducto)
-                            .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + idProducto));
-                    int nuevoStock = producto.getStock() - cantidad;
-                    if (nuevoStock < 0) {
-                        throw new RuntimeException("Stock insuficiente para el producto ID: " + idProducto);
-                    }
-                    producto.setStock(nuevoStock);
-                    productoRepository.save(producto);
-                    logger.info("Stock actualizado para producto ID {}: {}", idProducto, nuevoStock);
-                } else {
-                    logger.error("Formato de actualización inválido: {}", update);
-                }
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private EventosProcesados eventosProcesados;
+
+    // Micro-lotes: hasta productos.listener.stock.batch-size mensajes o receive-timeout-ms de espera
+    @RabbitListener(queues = RabbitMQConfig.ORDER_CREATED_QUEUE,
+            containerFactory = "stockBatchContainerFactory",
+            concurrency = "${productos.listener.order-created.concurrency:2-8}")
+    public void handleOrderCreated(List<OrderCreatedEvent> events) {
+        logger.info("Lote de {} eventos recibido en la cola {}", events.size(), RabbitMQConfig.ORDER_CREATED_QUEUE);
+
+        // Con reserva el stock ya se descontó; solo se asocia la reserva a la orden (idempotente)
+        Map<Long, Long> ordenesPorReserva = new LinkedHashMap<>();
+        List<OrderCreatedEvent> descuentos = new ArrayList<>();
+        for (OrderCreatedEvent event : events) {
+            if (event.getReservationId() != null) {
+                ordenesPorReserva.put(event.getReservationId(), event.getOrderId());
+            } else if (event.getItems() != null && !event.getItems().isEmpty()) {
+                descuentos.add(event);
             }
-        } catch (Exception e) {
-            logger.error("Error al procesar el mensaje de actualización de stock: {}", message, e);
         }
+        if (!ordenesPorReserva.isEmpty()) {
+            reservaService.asignarOrdenes(ordenesPorReserva);
+        }
+        if (!descuentos.isEmpty()) {
+            descontarLote(descuentos);
+        }
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.COBRO_COMPLETED_QUEUE,
+            concurrency = "${productos.listener.cobro-completed.concurrency:1-4}")
+    public void handleCobroCompleted(CobroCompletedEvent event) {
+        if (event.getOrderId() == null) {
+            logger.error("Evento de cobro completado sin idOrden");
+            return;
+        }
+        // Un error transitorio se propaga: el mensaje se reintenta y acaba en la DLQ en lugar de dejar
+        // la reserva de una orden pagada pendiente hasta que liberarVencidas la devuelva
+        reservaService.confirmarPorOrden(event.getOrderId());
+    }
+
+    // Todo el lote en una transacción; si una orden no tiene stock se aplica evento a evento
+    private void descontarLote(List<OrderCreatedEvent> events) {
+        Map<String, OrderCreatedEvent> porClave = new LinkedHashMap<>();
+        for (OrderCreatedEvent event : events) {
+            porClave.putIfAbsent(claveDe(event), event);
+        }
+        porClave.keySet().removeAll(eventosProcesados.filtrarProcesados(porClave.keySet()));
+        if (porClave.isEmpty()) {
+            return;
+        }
+
+        List<String> claves = new ArrayList<>(porClave.keySet());
+        List<OrderItem> items = porClave.values().stream()
+                .flatMap(event -> event.getItems().stream())
+                .toList();
+        try {
+            productoService.descontarStock(items, () -> eventosProcesados.registrarTodos(claves));
+            claves.forEach(eventosProcesados::recordar);
+            logger.info("Stock descontado para {} órdenes en un lote", claves.size());
+        } catch (StockInsuficienteException | IllegalArgumentException | EventosProcesados.EventoDuplicadoException e) {
+            logger.warn("Lote de {} órdenes no aplicado en bloque ({}); se procesa orden a orden", claves.size(), e.getMessage());
+            porClave.forEach(this::descontarEvento);
+        }
+    }
+
+    // Los errores transitorios se propagan: el lote completo se reintenta y las claves ya registradas se descartan
+    private void descontarEvento(String idEvento, OrderCreatedEvent event) {
+        try {
+            // La clave se registra en la misma transacción que el descuento
+            productoService.descontarStock(event.getItems(), () -> eventosProcesados.registrar(idEvento));
+            eventosProcesados.recordar(idEvento);
+            logger.info("Stock descontado para {} líneas de la orden {}", event.getItems().size(), event.getOrderId());
+        } catch (EventosProcesados.EventoDuplicadoException e) {
+            logger.info("Evento {} de la orden {} procesado por otra entrega", idEvento, event.getOrderId());
+        } catch (StockInsuficienteException | IllegalArgumentException e) {
+            // Reintentar no cambia el resultado
+            logger.error("No se pudo descontar el stock de la orden {}: {}", event.getOrderId(), e.getMessage());
+        }
+    }
+
+    private String claveDe(OrderCreatedEvent event) {
+        return event.getEventId() != null ? event.getEventId() : "order.created:" + event.getOrderId();
     }
-}
\ No newline at end of file
+}
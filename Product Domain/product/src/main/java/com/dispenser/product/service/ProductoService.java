@@ -1,37 +1,86 @@
 package com.dispenser.product.service;
 
 import com.dispenser.product.config.RabbitMQConfig;
+import com.dispenser.product.event.OrderItem;
+import com.dispenser.product.event.ProductCreatedEvent;
 import com.dispenser.product.model.Producto;
+import com.dispenser.product.repository.ProductoFiltros;
 import com.dispenser.product.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
 
 @Service
 public class ProductoService {
+    private static final Logger logger = LoggerFactory.getLogger(ProductoService.class);
+
     @Autowired
     private ProductoRepository productoRepository;
 
     @Autowired
     private RabbitTemplate rabbitTemplate;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ReservaStockLedger reservaLedger;
+
+    @Autowired
+    private StockMovimientos stockMovimientos;
+
+    // El stock nunca queda negativo: la fila solo se actualiza si alcanza para la cantidad pedida
+    private static final String DESCONTAR_STOCK_SQL =
+            "UPDATE producto SET stock = stock - ?, stock_version = stock_version + 1 WHERE id_producto = ? AND stock >= ?";
+    private static final String REPONER_STOCK_SQL =
+            "UPDATE producto SET stock = stock + ?, stock_version = stock_version + 1 WHERE id_producto = ?";
+    private static final String FIJAR_STOCK_SQL =
+            "UPDATE producto SET stock = ?, stock_version = stock_version + 1 WHERE id_producto = ?";
+    private static final String INCREMENTAR_VERSION_SQL =
+            "UPDATE producto SET stock_version = stock_version + 1 WHERE id_producto = ?";
+
     public Producto crearProducto(Producto producto) {
         Producto savedProducto = productoRepository.save(producto);
-        String message = savedProducto.getIdProducto() + "," + (savedProducto.getStock() != null ? savedProducto.getStock() : 0);
+        ProductCreatedEvent event = new ProductCreatedEvent(
+                savedProducto.getIdProducto(),
+                savedProducto.getStock() != null ? savedProducto.getStock() : 0
+        );
         rabbitTemplate.convertAndSend(
                 RabbitMQConfig.PRODUCT_CREATED_EXCHANGE,
                 RabbitMQConfig.ROUTING_KEY,
-                message
+                event
         );
-        System.out.println("Mensaje enviado a RabbitMQ: " + message); // Log para depuración
+        logger.debug("Evento product.created enviado para el producto {}", event.getProductId());
         return savedProducto;
     }
 
     public List<Producto> obtenerTodosLosProductos() {
-        return productoRepository.findAll();
+        return conStockEnMemoria(productoRepository.findAll());
+    }
+
+    // Página del catálogo con los filtros opcionales; el tamaño lo acota spring.data.web.pageable.max-page-size
+    public Page<Producto> buscarCatalogo(String categoria, String nombre, BigDecimal precioMin, BigDecimal precioMax, Pageable pageable) {
+        Page<Producto> pagina = productoRepository.findAll(ProductoFiltros.catalogo(categoria, nombre, precioMin, precioMax), pageable);
+        conStockEnMemoria(pagina.getContent());
+        return pagina;
     }
 
     public Producto actualizarProducto(Long id, Producto productoDetalles) {
@@ -41,13 +90,181 @@ public class ProductoService {
             producto.setNombre(productoDetalles.getNombre());
             producto.setPrecio(productoDetalles.getPrecio());
             producto.setStock(productoDetalles.getStock());
-            return productoRepository.save(producto);
+            return guardarConStock(producto);
         }
         throw new RuntimeException("Producto no encontrado");
     }
 
+    // Stock absoluto por producto, p. ej. desde la importación masiva de inventario. Cada cambio sube
+    // stock_version y sale como stock.movement, así que inventario lo recibe como cualquier otro.
+    // Devuelve los IDs actualizados; los que no existen se omiten
+    public List<Long> fijarStock(Map<Long, Integer> stocks) {
+        stocks.forEach((idProducto, stock) -> {
+            if (idProducto == null || stock == null || stock < 0) {
+                throw new IllegalArgumentException("Stock inválido para el producto ID: " + idProducto);
+            }
+        });
+        Map<Long, Integer> enBaseDeDatos = new TreeMap<>(stocks);
+        Map<Long, Integer> calientes = separarCalientes(enBaseDeDatos);
+        List<Long> fijados = new ArrayList<>();
+
+        if (!enBaseDeDatos.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> parametros = new ArrayList<>(enBaseDeDatos.size());
+                enBaseDeDatos.forEach((idProducto, stock) -> parametros.add(new Object[]{stock, idProducto}));
+                int[] filas = jdbcTemplate.batchUpdate(FIJAR_STOCK_SQL, parametros);
+                int i = 0;
+                for (Long idProducto : enBaseDeDatos.keySet()) {
+                    if (filas[i++] > 0) {
+                        fijados.add(idProducto);
+                    }
+                }
+                if (!fijados.isEmpty()) {
+                    stockMovimientos.registrar(fijados);
+                }
+            });
+        }
+        // Los de alta demanda, uno a uno por el ledger para que su contador en memoria quede con la misma cifra
+        calientes.forEach((idProducto, stock) -> productoRepository.findById(idProducto).ifPresent(producto -> {
+            producto.setStock(stock);
+            guardarConStock(producto);
+            fijados.add(idProducto);
+        }));
+        return fijados;
+    }
+
+    private Producto guardarConStock(Producto producto) {
+        Long id = producto.getIdProducto();
+        return reservaLedger.reemplazarStock(id, () -> transactionTemplate.execute(status -> {
+            Producto guardado = productoRepository.saveAndFlush(producto);
+            jdbcTemplate.update(INCREMENTAR_VERSION_SQL, id);
+            stockMovimientos.registrar(List.of(id));
+            return guardado;
+        }));
+    }
+
+    // Una sola consulta para todos los IDs solicitados; los que no existen se omiten
+    public List<Producto> obtenerProductosPorIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return conStockEnMemoria(productoRepository.findAllById(new LinkedHashSet<>(ids)));
+    }
+
+    public void descontarStock(List<OrderItem> items, Runnable enTransaccion) {
+        Map<Long, Integer> cantidades = new TreeMap<>();
+        for (OrderItem item : items) {
+            if (item.getItemId() == null || item.getQuantity() == null) {
+                throw new IllegalArgumentException("Línea de stock inválida para el producto ID: " + item.getItemId());
+            }
+            cantidades.merge(item.getItemId(), item.getQuantity(), Integer::sum);
+        }
+        descontarStock(cantidades, enTransaccion);
+    }
+
+    // Todo o nada: si una línea no alcanza, no se descuenta ninguna. Los productos de alta
+    // demanda se reservan en memoria; el resto va en un único lote SQL, en la misma transacción
+    // que enTransaccion. Las cantidades deben venir agrupadas por producto.
+    public void descontarStock(Map<Long, Integer> cantidades, Runnable enTransaccion) {
+        validarCantidades(cantidades);
+        // TreeMap: las filas se bloquean siempre en orden de ID
+        Map<Long, Integer> enBaseDeDatos = new TreeMap<>(cantidades);
+        Map<Long, Integer> calientes = separarCalientes(enBaseDeDatos);
+
+        if (!calientes.isEmpty() && !reservaLedger.reservar(calientes)) {
+            throw new StockInsuficienteException("Stock insuficiente para los productos: " + calientes.keySet());
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                descontarEnBaseDeDatos(enBaseDeDatos);
+                enTransaccion.run();
+            });
+        } catch (RuntimeException e) {
+            if (!calientes.isEmpty()) {
+                reservaLedger.liberar(calientes);
+            }
+            throw e;
+        }
+    }
+
+    // Devuelve las unidades solo si enTransaccion lo autoriza (p. ej. la reserva seguía pendiente)
+    public boolean reponerStock(Map<Long, Integer> cantidades, BooleanSupplier enTransaccion) {
+        validarCantidades(cantidades);
+        Map<Long, Integer> enBaseDeDatos = new TreeMap<>(cantidades);
+        Map<Long, Integer> calientes = separarCalientes(enBaseDeDatos);
+
+        Boolean repuesto = transactionTemplate.execute(status -> {
+            if (!enTransaccion.getAsBoolean()) {
+                return false;
+            }
+            List<Object[]> parametros = new ArrayList<>(enBaseDeDatos.size());
+            enBaseDeDatos.forEach((idProducto, cantidad) -> parametros.add(new Object[]{cantidad, idProducto}));
+            if (!parametros.isEmpty()) {
+                jdbcTemplate.batchUpdate(REPONER_STOCK_SQL, parametros);
+                stockMovimientos.registrar(enBaseDeDatos.keySet());
+            }
+            return true;
+        });
+        // Si el proceso cae entre el commit y esta línea, esas unidades quedan sin devolver (nunca se sobrevende)
+        if (Boolean.TRUE.equals(repuesto) && !calientes.isEmpty()) {
+            reservaLedger.liberar(calientes);
+        }
+        return Boolean.TRUE.equals(repuesto);
+    }
+
+    private void validarCantidades(Map<Long, Integer> cantidades) {
+        cantidades.forEach((idProducto, cantidad) -> {
+            if (idProducto == null || cantidad == null || cantidad <= 0) {
+                throw new IllegalArgumentException("Línea de stock inválida para el producto ID: " + idProducto);
+            }
+        });
+    }
+
+    // Quita de cantidades los productos gestionados en memoria y los devuelve aparte
+    private Map<Long, Integer> separarCalientes(Map<Long, Integer> cantidades) {
+        Map<Long, Integer> calientes = new TreeMap<>();
+        cantidades.entrySet().removeIf(entrada -> {
+            if (reservaLedger.esCaliente(entrada.getKey())) {
+                calientes.put(entrada.getKey(), entrada.getValue());
+                return true;
+            }
+            return false;
+        });
+        return calientes;
+    }
+
+    private void descontarEnBaseDeDatos(Map<Long, Integer> cantidades) {
+        if (cantidades.isEmpty()) {
+            return;
+        }
+        List<Object[]> parametros = new ArrayList<>(cantidades.size());
+        cantidades.forEach((idProducto, cantidad) -> parametros.add(new Object[]{cantidad, idProducto, cantidad}));
+        int[] filas = jdbcTemplate.batchUpdate(DESCONTAR_STOCK_SQL, parametros);
+
+        int i = 0;
+        for (Long idProducto : cantidades.keySet()) {
+            if (filas[i++] == 0) {
+                throw new StockInsuficienteException("Stock insuficiente o producto no encontrado con ID: " + idProducto);
+            }
+        }
+        stockMovimientos.registrar(cantidades.keySet());
+    }
+
     public Producto obtenerProductoPorId(Long id) {
-        return productoRepository.findById(id)
+        Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        conStockEnMemoria(List.of(producto));
+        return producto;
+    }
+
+    // Para los productos de alta demanda el stock vigente es el del ledger, no el de la fila
+    private List<Producto> conStockEnMemoria(List<Producto> productos) {
+        for (Producto producto : productos) {
+            Integer disponible = reservaLedger.disponible(producto.getIdProducto());
+            if (disponible != null) {
+                producto.setStock(disponible);
+            }
+        }
+        return productos;
     }
 }
\ No newline at end of file
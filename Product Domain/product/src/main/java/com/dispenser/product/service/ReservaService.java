@@ -0,0 +1,191 @@
+package com.dispenser.product.service;
+
+import com.dispenser.product.model.ReservaLinea;
+import com.dispenser.product.model.ReservaStock;
+import com.dispenser.product.repository.ReservaStockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Reservas de stock para órdenes: el stock se descuenta al reservar y la reserva
+ * queda pendiente hasta que llega el cobro (confirmada) o vence el TTL
+ * (liberada, las unidades vuelven al producto). Con clave, repetir la petición
+ * devuelve la misma reserva, y el llamador puede liberarla por clave aunque no
+ * llegara a recibir su ID.
+ */
+@Service
+public class ReservaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservaService.class);
+
+    @Autowired
+    private ReservaStockRepository reservaRepository;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final String ASIGNAR_ORDEN_SQL =
+            "UPDATE reserva_stock SET id_orden = ? WHERE id_reserva = ? AND id_orden IS NULL";
+
+    @Value("${productos.reservas.ttl:30m}")
+    private Duration ttl;
+
+    @Value("${productos.reservas.lote-vencidas:100}")
+    private int loteVencidas;
+
+    public ReservaStock reservar(String clave, List<ReservaLinea> lineas) {
+        if (lineas == null || lineas.isEmpty()) {
+            throw new IllegalArgumentException("La reserva no tiene productos");
+        }
+        Map<Long, Integer> cantidades = agrupar(lineas);
+        if (clave != null) {
+            Optional<ReservaStock> previa = reservaRepository.findByClave(clave);
+            if (previa.isPresent()) {
+                logger.info("Petición repetida con clave {}: se devuelve la reserva {}", clave, previa.get().getIdReserva());
+                return previa.get();
+            }
+        }
+
+        ReservaStock reserva = new ReservaStock();
+        reserva.setClave(clave);
+        reserva.setEstado(ReservaStock.PENDIENTE);
+        reserva.setCreadaEn(LocalDateTime.now());
+        reserva.setExpiraEn(reserva.getCreadaEn().plus(ttl));
+        cantidades.forEach((idProducto, cantidad) -> reserva.getLineas().add(new ReservaLinea(idProducto, cantidad)));
+
+        // Descuento y alta de la reserva en la misma transacción
+        try {
+            productoService.descontarStock(cantidades, () -> reservaRepository.saveAndFlush(reserva));
+        } catch (DataIntegrityViolationException e) {
+            // Otra petición con la misma clave (o su liberación) se guardó a la vez; este descuento se deshizo
+            if (clave != null) {
+                Optional<ReservaStock> previa = reservaRepository.findByClave(clave);
+                if (previa.isPresent()) {
+                    return previa.get();
+                }
+            }
+            throw e;
+        }
+        logger.info("Reserva {} creada para los productos {}, vence {}", reserva.getIdReserva(), cantidades.keySet(), reserva.getExpiraEn());
+        return reserva;
+    }
+
+    public boolean liberar(Long idReserva) {
+        ReservaStock reserva = reservaRepository.findById(idReserva)
+                .orElseThrow(() -> new RuntimeException("Reserva no encontrada con ID: " + idReserva));
+        boolean liberada = productoService.reponerStock(agrupar(reserva.getLineas()),
+                () -> reservaRepository.cambiarEstado(idReserva, ReservaStock.PENDIENTE, ReservaStock.LIBERADA) == 1);
+        if (liberada) {
+            logger.info("Reserva {} liberada", idReserva);
+        }
+        return liberada;
+    }
+
+    // Si la reserva todavía no existe (la petición sigue en curso) se ocupa la clave con una reserva ya
+    // liberada y sin líneas: la petición que llegue tarde choca con el índice único y no descuenta stock
+    public void liberarPorClave(String clave) {
+        Optional<ReservaStock> reserva = reservaRepository.findByClave(clave);
+        if (reserva.isPresent()) {
+            liberar(reserva.get().getIdReserva());
+            return;
+        }
+        ReservaStock anulada = new ReservaStock();
+        anulada.setClave(clave);
+        anulada.setEstado(ReservaStock.LIBERADA);
+        anulada.setCreadaEn(LocalDateTime.now());
+        anulada.setExpiraEn(anulada.getCreadaEn());
+        try {
+            reservaRepository.saveAndFlush(anulada);
+            logger.info("Clave de reserva {} anulada antes de que llegara la reserva", clave);
+        } catch (DataIntegrityViolationException e) {
+            // La reserva se guardó entre la consulta y el alta
+            reservaRepository.findByClave(clave).ifPresent(r -> liberar(r.getIdReserva()));
+        }
+    }
+
+    // idReserva -> idOrden, en un único lote JDBC
+    @Transactional
+    public void asignarOrdenes(Map<Long, Long> ordenesPorReserva) {
+        List<Object[]> parametros = new ArrayList<>(ordenesPorReserva.size());
+        ordenesPorReserva.forEach((idReserva, idOrden) -> parametros.add(new Object[]{idOrden, idReserva}));
+        jdbcTemplate.batchUpdate(ASIGNAR_ORDEN_SQL, parametros);
+    }
+
+    public void confirmarPorOrden(Long idOrden) {
+        ReservaStock reserva = reservaRepository.findFirstByIdOrden(idOrden).orElse(null);
+        if (reserva == null) {
+            logger.warn("No hay reserva de stock para la orden {}", idOrden);
+            return;
+        }
+        Long idReserva = reserva.getIdReserva();
+        Integer confirmadas = transactionTemplate.execute(status ->
+                reservaRepository.cambiarEstado(idReserva, ReservaStock.PENDIENTE, ReservaStock.CONFIRMADA));
+        if (confirmadas != null && confirmadas == 1) {
+            logger.info("Reserva {} confirmada para la orden {}", idReserva, idOrden);
+            return;
+        }
+
+        // Cobro después del vencimiento: se intenta volver a tomar el stock
+        String estado = reservaRepository.findById(idReserva).map(ReservaStock::getEstado).orElse(null);
+        if (!ReservaStock.LIBERADA.equals(estado)) {
+            return;
+        }
+        try {
+            productoService.descontarStock(agrupar(reserva.getLineas()), () -> {
+                if (reservaRepository.cambiarEstado(idReserva, ReservaStock.LIBERADA, ReservaStock.CONFIRMADA) == 0) {
+                    throw new IllegalStateException("La reserva " + idReserva + " cambió de estado");
+                }
+            });
+            logger.info("Reserva vencida {} recuperada al cobrar la orden {}", idReserva, idOrden);
+        } catch (StockInsuficienteException e) {
+            logger.error("Orden {} cobrada con la reserva {} vencida y sin stock suficiente", idOrden, idReserva);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${productos.reservas.liberacion-ms:60000}")
+    public void liberarVencidas() {
+        List<ReservaStock> vencidas = reservaRepository.findByEstadoAndExpiraEnBeforeOrderByExpiraEn(
+                ReservaStock.PENDIENTE, LocalDateTime.now(), Limit.of(loteVencidas));
+        for (ReservaStock reserva : vencidas) {
+            try {
+                liberar(reserva.getIdReserva());
+            } catch (RuntimeException e) {
+                logger.error("No se pudo liberar la reserva vencida {}", reserva.getIdReserva(), e);
+            }
+        }
+    }
+
+    private Map<Long, Integer> agrupar(List<ReservaLinea> lineas) {
+        Map<Long, Integer> cantidades = new TreeMap<>();
+        for (ReservaLinea linea : lineas) {
+            if (linea.getIdProducto() == null || linea.getCantidad() == null) {
+                throw new IllegalArgumentException("Línea de reserva inválida para el producto ID: " + linea.getIdProducto());
+            }
+            cantidades.merge(linea.getIdProducto(), linea.getCantidad(), Integer::sum);
+        }
+        return cantidades;
+    }
+}
@@ -0,0 +1,388 @@
+package com.dispenser.product.service;
+
+import com.dispenser.product.model.Producto;
+import com.dispenser.product.model.ReservaCheckpoint;
+import com.dispenser.product.repository.ProductoRepository;
+import com.dispenser.product.repository.ReservaCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Reservas en memoria para los productos de alta demanda (productos.reservas.hot-skus).
+ * El stock disponible de cada SKU es un contador atómico: las reservas se conceden
+ * o rechazan con CAS sin bloquear la fila de producto. Cada reserva se anota en un
+ * log en disco y el neto acumulado se escribe en producto.stock en lote, junto con
+ * la última secuencia aplicada (reserva_checkpoint). Al arrancar se reaplican las
+ * entradas del log posteriores a esa secuencia.
+ *
+ * Una reserva solo se confirma cuando su línea está en disco (force). Los hilos que
+ * escriben a la vez comparten un mismo force: el primero sincroniza todo lo escrito
+ * hasta ese momento y los demás ya encuentran su línea cubierta (group commit).
+ * Si la escritura falla a medias, el log se recorta hasta donde estaba. Si falla el
+ * force, la línea pudo llegar al disco igualmente, así que se anula con una línea
+ * "anula=secuencia" que la recuperación respeta. Si tampoco eso es posible, log y
+ * memoria ya no coinciden y el ledger deja de aceptar reservas hasta reiniciar.
+ *
+ * El stock de estos SKU vive en esta instancia, así que PRODUCT-SERVICE debe
+ * ejecutarse con una sola réplica mientras haya SKU configurados.
+ */
+@Component
+public class ReservaStockLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservaStockLedger.class);
+
+    private static final String APLICAR_DELTA_SQL =
+            "UPDATE producto SET stock = stock - ?, stock_version = stock_version + 1 WHERE id_producto = ?";
+    private static final String CHECKPOINT_SQL = "UPDATE reserva_checkpoint SET ultima_secuencia = ? WHERE id = ?";
+    private static final String ANULA = "anula=";
+
+    private final Map<Long, AtomicInteger> disponible = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> pendiente = new ConcurrentHashMap<>();
+    // Las reservas comparten el bloqueo de lectura; el volcado toma el de escritura para cortar un instante consistente
+    private final ReentrantReadWriteLock corte = new ReentrantReadWriteLock();
+    private final AtomicLong secuencia = new AtomicLong();
+    private final Object logLock = new Object();
+    private final Object forceLock = new Object();
+    // Última secuencia escrita entera en el log y última que ya pasó por force()
+    private volatile long escrita;
+    private volatile long sincronizada;
+    private volatile boolean detenido;
+
+    private final ProductoRepository productoRepository;
+    private final ReservaCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockMovimientos stockMovimientos;
+    private final Set<Long> skus;
+    private final Path rutaLog;
+
+    private FileChannel log;
+    private volatile long checkpoint;
+
+    public ReservaStockLedger(ProductoRepository productoRepository,
+                              ReservaCheckpointRepository checkpointRepository,
+                              JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              StockMovimientos stockMovimientos,
+                              @Value("${productos.reservas.hot-skus:}") Set<Long> skus,
+                              @Value("${productos.reservas.log:data/reservas.log}") String rutaLog) {
+        this.productoRepository = productoRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.stockMovimientos = stockMovimientos;
+        this.skus = skus;
+        this.rutaLog = Paths.get(rutaLog);
+    }
+
+    // Se ejecuta antes de que arranquen los listeners de RabbitMQ
+    @PostConstruct
+    void iniciar() throws IOException {
+        recuperar();
+        if (rutaLog.getParent() != null) {
+            Files.createDirectories(rutaLog.getParent());
+        }
+        log = FileChannel.open(rutaLog, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        log.truncate(0);
+
+        for (Producto producto : productoRepository.findAllById(skus)) {
+            disponible.put(producto.getIdProducto(), new AtomicInteger(producto.getStock() != null ? producto.getStock() : 0));
+            pendiente.put(producto.getIdProducto(), new AtomicInteger());
+        }
+        if (!disponible.isEmpty()) {
+            logger.info("Reservas en memoria activas para los productos {}", disponible.keySet());
+        }
+    }
+
+    @PreDestroy
+    void detener() throws IOException {
+        volcar();
+        log.close();
+    }
+
+    public boolean esCaliente(Long idProducto) {
+        return disponible.containsKey(idProducto);
+    }
+
+    // Stock disponible en memoria, o null si el producto no se gestiona aquí
+    public Integer disponible(Long idProducto) {
+        AtomicInteger contador = disponible.get(idProducto);
+        return contador != null ? contador.get() : null;
+    }
+
+    // Todo o nada: si un producto no alcanza se devuelven las unidades ya tomadas
+    public boolean reservar(Map<Long, Integer> cantidades) {
+        comprobarActivo();
+        corte.readLock().lock();
+        try {
+            List<Map.Entry<Long, Integer>> concedidas = new ArrayList<>(cantidades.size());
+            for (Map.Entry<Long, Integer> entrada : cantidades.entrySet()) {
+                if (!descontar(disponible.get(entrada.getKey()), entrada.getValue())) {
+                    concedidas.forEach(c -> disponible.get(c.getKey()).addAndGet(c.getValue()));
+                    return false;
+                }
+                concedidas.add(entrada);
+            }
+            try {
+                anotar(cantidades, 1);
+            } catch (UncheckedIOException e) {
+                concedidas.forEach(c -> disponible.get(c.getKey()).addAndGet(c.getValue()));
+                throw e;
+            }
+            return true;
+        } finally {
+            corte.readLock().unlock();
+        }
+    }
+
+    public void liberar(Map<Long, Integer> cantidades) {
+        comprobarActivo();
+        corte.readLock().lock();
+        try {
+            anotar(cantidades, -1);
+            cantidades.forEach((idProducto, cantidad) -> disponible.get(idProducto).addAndGet(cantidad));
+        } finally {
+            corte.readLock().unlock();
+        }
+    }
+
+    // Cambio manual del stock: se vuelca lo pendiente y el nuevo valor pasa a ser el disponible
+    public Producto reemplazarStock(Long idProducto, Supplier<Producto> guardar) {
+        if (!esCaliente(idProducto)) {
+            return guardar.get();
+        }
+        corte.writeLock().lock();
+        try {
+            volcar();
+            Producto producto = guardar.get();
+            disponible.get(idProducto).set(producto.getStock() != null ? producto.getStock() : 0);
+            return producto;
+        } finally {
+            corte.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${productos.reservas.flush-ms:500}")
+    public void volcar() {
+        Map<Long, Integer> deltas = new TreeMap<>();
+        long hasta;
+        corte.writeLock().lock();
+        try {
+            hasta = secuencia.get();
+            pendiente.forEach((idProducto, contador) -> {
+                int delta = contador.getAndSet(0);
+                if (delta != 0) {
+                    deltas.put(idProducto, delta);
+                }
+            });
+        } finally {
+            corte.writeLock().unlock();
+        }
+        if (hasta == checkpoint) {
+            return;
+        }
+
+        try {
+            aplicar(deltas, hasta);
+            checkpoint = hasta;
+        } catch (RuntimeException e) {
+            // Se reintenta en el próximo ciclo; el log conserva las entradas
+            deltas.forEach((idProducto, delta) -> pendiente.get(idProducto).addAndGet(delta));
+            logger.error("No se pudo volcar el stock reservado hasta la secuencia {}", hasta, e);
+            return;
+        }
+
+        // Sin reservas nuevas desde el corte: el log ya está aplicado y se puede vaciar
+        corte.writeLock().lock();
+        try {
+            if (secuencia.get() == hasta) {
+                synchronized (logLock) {
+                    log.truncate(0);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("No se pudo vaciar el log de reservas {}", rutaLog, e);
+        } finally {
+            corte.writeLock().unlock();
+        }
+    }
+
+    private void comprobarActivo() {
+        if (detenido) {
+            throw new IllegalStateException("El log de reservas " + rutaLog + " falló; reinicie PRODUCT-SERVICE");
+        }
+    }
+
+    private boolean descontar(AtomicInteger contador, int cantidad) {
+        while (true) {
+            int actual = contador.get();
+            if (actual < cantidad) {
+                return false;
+            }
+            if (contador.compareAndSet(actual, actual - cantidad)) {
+                return true;
+            }
+        }
+    }
+
+    // Una línea por reserva: secuencia;idProducto:cantidad,...  (cantidades negativas = liberación)
+    private void anotar(Map<Long, Integer> cantidades, int signo) {
+        StringBuilder linea = new StringBuilder();
+        cantidades.forEach((idProducto, cantidad) -> {
+            linea.append(linea.isEmpty() ? "" : ",").append(idProducto).append(':').append(signo * cantidad);
+        });
+        long seq = escribir(linea.toString());
+        try {
+            sincronizar(seq);
+        } catch (UncheckedIOException e) {
+            // La línea pudo quedar en disco y se reaplicaría al arrancar
+            anular(seq, e);
+            throw e;
+        }
+        cantidades.forEach((idProducto, cantidad) -> pendiente.get(idProducto).addAndGet(signo * cantidad));
+    }
+
+    private long escribir(String contenido) {
+        synchronized (logLock) {
+            long seq = secuencia.incrementAndGet();
+            ByteBuffer buffer = ByteBuffer.wrap((seq + ";" + contenido + "\n").getBytes(StandardCharsets.UTF_8));
+            long posicion = -1;
+            try {
+                posicion = log.size();
+                while (buffer.hasRemaining()) {
+                    log.write(buffer);
+                }
+            } catch (IOException e) {
+                // Una línea a medias puede seguir siendo válida ("12;5:3" de "12;5:30"): se recorta
+                if (posicion >= 0) {
+                    try {
+                        log.truncate(posicion);
+                    } catch (IOException recorte) {
+                        e.addSuppressed(recorte);
+                        marcarDetenido(e);
+                    }
+                }
+                throw new UncheckedIOException("No se pudo escribir el log de reservas", e);
+            }
+            escrita = seq;
+            return seq;
+        }
+    }
+
+    private void anular(long seq, UncheckedIOException causa) {
+        try {
+            sincronizar(escribir(ANULA + seq));
+        } catch (UncheckedIOException e) {
+            causa.addSuppressed(e);
+            marcarDetenido(causa);
+        }
+    }
+
+    private void marcarDetenido(Exception causa) {
+        detenido = true;
+        logger.error("El log de reservas {} no coincide con el stock en memoria; no se aceptan más reservas hasta reiniciar",
+                rutaLog, causa);
+    }
+
+    // Vuelve cuando la línea seq ya está en disco; un solo force() cubre todas las líneas escritas hasta entonces
+    private void sincronizar(long seq) {
+        if (sincronizada >= seq) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (sincronizada >= seq) {
+                return;
+            }
+            long hasta = escrita;
+            try {
+                log.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo sincronizar el log de reservas", e);
+            }
+            sincronizada = hasta;
+        }
+    }
+
+    private void recuperar() throws IOException {
+        long aplicada = checkpointRepository.findById(ReservaCheckpoint.ID)
+                .orElseGet(() -> checkpointRepository.save(new ReservaCheckpoint(ReservaCheckpoint.ID, 0L)))
+                .getUltimaSecuencia();
+        Map<Long, Map<Long, Integer>> porSecuencia = new TreeMap<>();
+        Set<Long> anuladas = new HashSet<>();
+        long ultima = aplicada;
+        if (Files.exists(rutaLog)) {
+            for (String linea : Files.readAllLines(rutaLog, StandardCharsets.UTF_8)) {
+                try {
+                    String[] partes = linea.split(";");
+                    long seq = Long.parseLong(partes[0]);
+                    if (partes[1].startsWith(ANULA)) {
+                        anuladas.add(Long.parseLong(partes[1].substring(ANULA.length())));
+                    } else if (seq > aplicada) {
+                        Map<Long, Integer> items = new TreeMap<>();
+                        for (String item : partes[1].split(",")) {
+                            String[] campos = item.split(":");
+                            items.merge(Long.parseLong(campos[0]), Integer.parseInt(campos[1]), Integer::sum);
+                        }
+                        porSecuencia.put(seq, items);
+                    }
+                    ultima = Math.max(ultima, seq);
+                } catch (RuntimeException e) {
+                    // Última línea cortada por una caída a mitad de escritura
+                    logger.warn("Línea del log de reservas descartada: {}", linea);
+                }
+            }
+        }
+        // Reservas rechazadas al fallar su force: no se reaplican aunque su línea llegara al disco
+        porSecuencia.keySet().removeAll(anuladas);
+        Map<Long, Integer> deltas = new TreeMap<>();
+        porSecuencia.values().forEach(items -> items.forEach((idProducto, delta) -> deltas.merge(idProducto, delta, Integer::sum)));
+        if (ultima > aplicada) {
+            aplicar(deltas, ultima);
+            logger.info("Log de reservas recuperado: secuencias {} a {}, productos {}", aplicada + 1, ultima, deltas.keySet());
+        }
+        checkpoint = ultima;
+        secuencia.set(ultima);
+        escrita = ultima;
+        sincronizada = ultima;
+    }
+
+    private void aplicar(Map<Long, Integer> deltas, long hasta) {
+        List<Object[]> parametros = new ArrayList<>(deltas.size());
+        deltas.forEach((idProducto, delta) -> parametros.add(new Object[]{delta, idProducto}));
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!parametros.isEmpty()) {
+                jdbcTemplate.batchUpdate(APLICAR_DELTA_SQL, parametros);
+                stockMovimientos.registrar(deltas.keySet());
+            }
+            jdbcTemplate.update(CHECKPOINT_SQL, hasta, ReservaCheckpoint.ID);
+        });
+    }
+}
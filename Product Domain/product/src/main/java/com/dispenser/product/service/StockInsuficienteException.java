@@ -0,0 +1,12 @@
+package com.dispenser.product.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Se responde 409 para que el llamador distinga la falta de stock de un error interno
+@ResponseStatus(HttpStatus.CONFLICT)
+public class StockInsuficienteException extends RuntimeException {
+    public StockInsuficienteException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,66 @@
+package com.dispenser.product.service;
+
+import com.dispenser.product.config.RabbitMQConfig;
+import com.dispenser.product.event.StockMovementEvent;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Registra stock.movement con el stock absoluto y la versión (stock_version) de cada
+ * producto modificado. Los eventos se guardan en outbox_evento en la misma transacción
+ * que el cambio de stock y OutboxRelay los publica después, así que un fallo del broker
+ * solo retrasa el evento: un producto que deja de moverse (por ejemplo, agotado) no se
+ * queda con un stock viejo en inventory-service. Los consumidores aplican solo versiones
+ * mayores a la que ya tienen, así que el orden por producto se respeta aunque los
+ * mensajes lleguen desordenados o repetidos.
+ */
+@Component
+public class StockMovimientos {
+
+    private static final String CONSULTAR_STOCK_SQL =
+            "SELECT id_producto, stock, stock_version FROM producto WHERE id_producto IN (%s)";
+    private static final String INSERTAR_OUTBOX_SQL =
+            "INSERT INTO outbox_evento (exchange, routing_key, tipo, payload, creado_en) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MessageConverter messageConverter;
+
+    // Se llama dentro de la transacción que cambió el stock: las filas siguen bloqueadas y se lee
+    // exactamente lo escrito. Si hay rollback, los eventos se descartan con él.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(Collection<Long> idsProducto) {
+        if (idsProducto.isEmpty()) {
+            return;
+        }
+        String marcadores = String.join(",", Collections.nCopies(idsProducto.size(), "?"));
+        List<StockMovementEvent> eventos = jdbcTemplate.query(String.format(CONSULTAR_STOCK_SQL, marcadores),
+                (rs, fila) -> new StockMovementEvent(rs.getLong("id_producto"), rs.getInt("stock"), rs.getLong("stock_version")),
+                idsProducto.toArray());
+
+        // Un solo lote JDBC para todos los eventos, como el descuento de stock
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> parametros = new ArrayList<>(eventos.size());
+        for (StockMovementEvent evento : eventos) {
+            Message message = messageConverter.toMessage(evento, new MessageProperties());
+            parametros.add(new Object[]{RabbitMQConfig.STOCK_EVENTS_EXCHANGE, RabbitMQConfig.STOCK_MOVEMENT_ROUTING_KEY,
+                    message.getMessageProperties().getType(), message.getBody(), ahora});
+        }
+        jdbcTemplate.batchUpdate(INSERTAR_OUTBOX_SQL, parametros);
+    }
+}
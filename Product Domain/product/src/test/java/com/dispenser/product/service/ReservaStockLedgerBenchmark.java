@@ -0,0 +1,193 @@
+package com.dispenser.product.service;
+
+import com.dispenser.product.model.Producto;
+import com.dispenser.product.model.ReservaCheckpoint;
+import com.dispenser.product.repository.ProductoRepository;
+import com.dispenser.product.repository.ReservaCheckpointRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reservas por segundo sobre pocos productos muy demandados con muchos hilos a la vez:
+ * <ul>
+ *   <li>ledger: ReservaStockLedger con su log real en disco (force por grupo de reservas).</li>
+ *   <li>filaPostgres: el camino de los productos normales, un UPDATE condicional por reserva
+ *   en su propia transacción, que serializa a los hilos en el bloqueo de la fila.</li>
+ * </ul>
+ * filaPostgres necesita una base PostgreSQL (crea y borra la tabla benchmark_producto); se
+ * configura por entorno porque exec y JMH arrancan JVM nuevas:
+ *
+ * BENCHMARK_JDBC_URL=jdbc:postgresql://localhost:5432/product BENCHMARK_JDBC_USUARIO=... BENCHMARK_JDBC_CLAVE=...
+ *     mvn -Pbenchmark test-compile exec:exec -Dbenchmark.filtro=ReservaStockLedger
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class ReservaStockLedgerBenchmark {
+
+    private static final int STOCK_INICIAL = 1_000_000_000;
+
+    @State(Scope.Benchmark)
+    public static class Productos {
+        @Param({"1", "4"})
+        int calientes;
+
+        Long[] ids;
+
+        @Setup(Level.Trial)
+        public void preparar() {
+            ids = LongStream.rangeClosed(1, calientes).boxed().toArray(Long[]::new);
+        }
+
+        Long alAzar() {
+            return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Ledger {
+        ReservaStockLedger ledger;
+        Path directorio;
+
+        @Setup(Level.Trial)
+        public void iniciar(Productos productos) throws IOException {
+            directorio = Files.createTempDirectory("reservas-benchmark");
+            ProductoRepository productoRepository = mock(ProductoRepository.class);
+            List<Producto> filas = new ArrayList<>();
+            for (Long id : productos.ids) {
+                Producto producto = new Producto();
+                producto.setIdProducto(id);
+                producto.setStock(STOCK_INICIAL);
+                filas.add(producto);
+            }
+            when(productoRepository.findAllById(any())).thenReturn(filas);
+            ReservaCheckpointRepository checkpointRepository = mock(ReservaCheckpointRepository.class);
+            when(checkpointRepository.findById(ReservaCheckpoint.ID))
+                    .thenReturn(Optional.of(new ReservaCheckpoint(ReservaCheckpoint.ID, 0L)));
+
+            Set<Long> skus = Set.of(productos.ids);
+            ledger = new ReservaStockLedger(productoRepository, checkpointRepository, mock(JdbcTemplate.class),
+                    mock(TransactionTemplate.class), mock(StockMovimientos.class), skus,
+                    directorio.resolve("reservas.log").toString());
+            ledger.iniciar();
+        }
+
+        @TearDown(Level.Trial)
+        public void detener() throws IOException {
+            ledger.detener();
+            try (var archivos = Files.list(directorio)) {
+                for (Path archivo : archivos.collect(Collectors.toList())) {
+                    Files.delete(archivo);
+                }
+            }
+            Files.delete(directorio);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Tabla {
+        String url;
+        String usuario;
+        String clave;
+
+        @Setup(Level.Trial)
+        public void crear(Productos productos) throws SQLException {
+            url = System.getenv("BENCHMARK_JDBC_URL");
+            if (url == null) {
+                throw new IllegalStateException("filaPostgres necesita la variable BENCHMARK_JDBC_URL");
+            }
+            usuario = System.getenv().getOrDefault("BENCHMARK_JDBC_USUARIO", "postgres");
+            clave = System.getenv().getOrDefault("BENCHMARK_JDBC_CLAVE", "");
+            try (Connection conexion = DriverManager.getConnection(url, usuario, clave);
+                 Statement sql = conexion.createStatement()) {
+                sql.execute("DROP TABLE IF EXISTS benchmark_producto");
+                sql.execute("CREATE TABLE benchmark_producto (id_producto bigint PRIMARY KEY, stock integer NOT NULL, "
+                        + "stock_version bigint NOT NULL DEFAULT 0)");
+                for (Long id : productos.ids) {
+                    sql.execute("INSERT INTO benchmark_producto (id_producto, stock) VALUES (" + id + ", " + STOCK_INICIAL + ")");
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void borrar() throws SQLException {
+            try (Connection conexion = DriverManager.getConnection(url, usuario, clave);
+                 Statement sql = conexion.createStatement()) {
+                sql.execute("DROP TABLE IF EXISTS benchmark_producto");
+            }
+        }
+    }
+
+    // Una conexión por hilo, como el pool de Hikari con un hilo por mensaje
+    @State(Scope.Thread)
+    public static class Conexion {
+        Connection conexion;
+        PreparedStatement descontar;
+
+        @Setup(Level.Trial)
+        public void abrir(Tabla tabla) throws SQLException {
+            conexion = DriverManager.getConnection(tabla.url, tabla.usuario, tabla.clave);
+            conexion.setAutoCommit(true);
+            // Misma sentencia que ProductoService.DESCONTAR_STOCK_SQL
+            descontar = conexion.prepareStatement("UPDATE benchmark_producto SET stock = stock - ?, "
+                    + "stock_version = stock_version + 1 WHERE id_producto = ? AND stock >= ?");
+        }
+
+        @TearDown(Level.Trial)
+        public void cerrar() throws SQLException {
+            conexion.close();
+        }
+    }
+
+    @Benchmark
+    public boolean ledger(Productos productos, Ledger estado) {
+        return estado.ledger.reservar(Map.of(productos.alAzar(), 1));
+    }
+
+    @Benchmark
+    public boolean filaPostgres(Productos productos, Conexion estado) throws SQLException {
+        estado.descontar.setInt(1, 1);
+        estado.descontar.setLong(2, productos.alAzar());
+        estado.descontar.setInt(3, 1);
+        return estado.descontar.executeUpdate() == 1;
+    }
+}
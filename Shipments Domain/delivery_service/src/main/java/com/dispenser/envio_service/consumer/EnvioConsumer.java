@@ -1,6 +1,9 @@
 package com.dispenser.envio_service.consumer;
 
 import com.dispenser.envio_service.config.RabbitMQConfig;
+import com.dispenser.envio_service.event.DespachoUpdatedEvent;
+import com.dispenser.envio_service.event.OrderStatusChangedEvent;
+import com.dispenser.envio_service.event.ShipmentRequestedEvent;
 import com.dispenser.envio_service.model.Envio;
 import com.dispenser.envio_service.service.EnvioService;
 import org.slf4j.Logger;
@@ -24,20 +27,18 @@ public class EnvioConsumer {
     private RabbitTemplate rabbitTemplate;
 
     @RabbitListener(queues = "envio.process.queue")
-    public void processDispatchUpdated(String message) {
-        logger.info("Mensaje recibido en EnvioConsumer: {}", message);
+    public void processDispatchUpdated(ShipmentRequestedEvent event) {
+        logger.info("Evento recibido en EnvioConsumer para el despacho {}", event.getDispatchId());
 
         try {
-            // Parsear el mensaje (idDespacho,idOrden,direccionEntrega,correoUsuario)
-            String[] parts = message.split(",");
-            if (parts.length < 4) {
-                throw new IllegalArgumentException("Mensaje inválido: se requieren idDespacho, idOrden, direccionEntrega y correoUsuario");
+            if (event.getDispatchId() == null || event.getOrderId() == null) {
+                throw new IllegalArgumentException("Evento inválido: se requieren idDespacho, idOrden, direccionEntrega y correoUsuario");
             }
 
-            Long idDespacho = Long.parseLong(parts[0].trim()); // idDespacho
-            Long idOrden = Long.parseLong(parts[1].trim());    // idOrden
-            String direccionEntrega = parts[2].trim();         // direccionEntrega
-            String correoUsuario = parts[3].trim();            // correoUsuario
+            Long idDespacho = event.getDispatchId();
+            Long idOrden = event.getOrderId();
+            String direccionEntrega = event.getDeliveryAddress();
+            String correoUsuario = event.getEmail();
 
             // Crear y guardar el envío
             Envio envio = new Envio();
@@ -58,15 +59,14 @@ public class EnvioConsumer {
                 logger.info("Envío procesado para idDespacho {}: Estado = enviada", idDespacho);
 
                 // Enviar mensaje a despacho-service para actualizar
-                String updateDespachoMessage = String.format("idDespacho=%d,estado=enviada,fechaDespacho=%s",
-                        idDespacho, savedEnvio.getFechaDespacho());
-                rabbitTemplate.convertAndSend("despacho.update.exchange", "despacho.update", updateDespachoMessage);
-                logger.info("Mensaje enviado a despacho-service: {}", updateDespachoMessage);
+                DespachoUpdatedEvent updateDespachoEvent = new DespachoUpdatedEvent(idDespacho, "enviada", savedEnvio.getFechaDespacho());
+                rabbitTemplate.convertAndSend("despacho.update.exchange", "despacho.update", updateDespachoEvent);
+                logger.info("Evento enviado a despacho-service para el despacho {}", idDespacho);
 
                 // Enviar mensaje a OrdenService para actualizar el estado
-                String updateOrderMessage = String.format("idOrden=%d,estado=Pagado y enviado", idOrden);
-                rabbitTemplate.convertAndSend(RabbitMQConfig.ORDER_UPDATE_EXCHANGE, RabbitMQConfig.ORDER_UPDATE_ROUTING_KEY, updateOrderMessage);
-                logger.info("Mensaje enviado a OrdenService: {}", updateOrderMessage);
+                OrderStatusChangedEvent updateOrderEvent = new OrderStatusChangedEvent(idOrden, "Pagado y enviado");
+                rabbitTemplate.convertAndSend(RabbitMQConfig.ORDER_UPDATE_EXCHANGE, RabbitMQConfig.ORDER_UPDATE_ROUTING_KEY, updateOrderEvent);
+                logger.info("Evento enviado a OrdenService para la orden {}", idOrden);
 
                 // Enviar correo
                 enviarCorreo(savedEnvio);
@@ -6,6 +6,8 @@ import com.dispenser.envio_service.dto.OrdenDTO;
 import com.dispenser.envio_service.config.RabbitMQConfig;
 import com.dispenser.envio_service.dto.ClienteDTO;
 import com.dispenser.envio_service.dto.DespachoDTO;
+import com.dispenser.envio_service.event.DespachoUpdatedEvent;
+import com.dispenser.envio_service.event.OrderStatusChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
@@ -82,16 +84,15 @@ public class EnvioController {
             logger.warn("No se puede actualizar el despacho: idDespacho es null");
             return;
         }
-        String updateMessage = String.format("idDespacho=%d,estado=enviada,fechaDespacho=%s",
-                envio.getIdDespacho(), envio.getFechaDespacho());
-        rabbitTemplate.convertAndSend("despacho.update.exchange", "despacho.update", updateMessage);
-        logger.info("Mensaje enviado a despacho-service: {}", updateMessage);
+        DespachoUpdatedEvent updateEvent = new DespachoUpdatedEvent(envio.getIdDespacho(), "enviada", envio.getFechaDespacho());
+        rabbitTemplate.convertAndSend("despacho.update.exchange", "despacho.update", updateEvent);
+        logger.info("Evento enviado a despacho-service para el despacho {}", envio.getIdDespacho());
     }
 
     private void actualizarOrden(Envio envio) {
-        String updateOrderMessage = String.format("idOrden=%d,estado=Pagado y enviado", envio.getIdOrden());
-        rabbitTemplate.convertAndSend(RabbitMQConfig.ORDER_UPDATE_EXCHANGE, RabbitMQConfig.ORDER_UPDATE_ROUTING_KEY, updateOrderMessage);
-        logger.info("Mensaje enviado a OrdenService: {}", updateOrderMessage);
+        OrderStatusChangedEvent updateOrderEvent = new OrderStatusChangedEvent(envio.getIdOrden(), "Pagado y enviado");
+        rabbitTemplate.convertAndSend(RabbitMQConfig.ORDER_UPDATE_EXCHANGE, RabbitMQConfig.ORDER_UPDATE_ROUTING_KEY, updateOrderEvent);
+        logger.info("Evento enviado a OrdenService para la orden {}", envio.getIdOrden());
     }
 
     private void enviarCorreo(Envio envio) {
@@ -0,0 +1,26 @@
+package com.dispenser.envio_service.event;
+
+// Despacho agendado con los datos de entrega (envio.completed)
+public class ShipmentRequestedEvent {
+    private Long dispatchId;
+    private Long orderId;
+    private String deliveryAddress;
+    private String email;
+
+    public ShipmentRequestedEvent() {}
+    public ShipmentRequestedEvent(Long dispatchId, Long orderId, String deliveryAddress, String email) {
+        this.dispatchId = dispatchId;
+        this.orderId = orderId;
+        this.deliveryAddress = deliveryAddress;
+        this.email = email;
+    }
+
+    public Long getDispatchId() { return dispatchId; }
+    public void setDispatchId(Long dispatchId) { this.dispatchId = dispatchId; }
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public String getDeliveryAddress() { return deliveryAddress; }
+    public void setDeliveryAddress(String deliveryAddress) { this.deliveryAddress = deliveryAddress; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+}
@@ -0,0 +1,60 @@
+package com.dispenser.commons.amqp;
+
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
+import org.springframework.amqp.rabbit.retry.RepublishMessageRecoverer;
+import org.springframework.expression.common.LiteralExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Destino de los mensajes que agotan spring.rabbitmq.listener.simple.retry:
+ * en lugar de descartarlos se republican en el exchange DLX del servicio con
+ * la cola de origen como routing key, y de ahí van a "&lt;cola&gt;.dlq" con la
+ * excepción en las cabeceras x-exception-*. Sirve también para los listeners
+ * en micro-lotes (cada mensaje del lote se republica por separado).
+ * <p>
+ * Se registra como bean MessageRecoverer y Spring Boot lo aplica a todas las
+ * fábricas configuradas con SimpleRabbitListenerContainerFactoryConfigurer.
+ * Las colas no cambian de argumentos, así que no hay que recrearlas.
+ */
+public class DlqMessageRecoverer extends RepublishMessageRecoverer implements MessageBatchRecoverer {
+
+    public static final String SUFIJO_DLQ = ".dlq";
+
+    public DlqMessageRecoverer(AmqpTemplate errorTemplate, String exchangeDlx) {
+        super(errorTemplate, new LiteralExpression(exchangeDlx),
+                new SpelExpressionParser().parseExpression("messageProperties.consumerQueue"));
+    }
+
+    @Override
+    public void recover(List<Message> messages, Throwable cause) {
+        for (Message message : messages) {
+            recover(message, cause);
+        }
+    }
+
+    /**
+     * Exchange DLX y una cola "&lt;cola&gt;.dlq" enlazada por cada cola escuchada.
+     */
+    public static Declarables declarables(String exchangeDlx, String... colas) {
+        DirectExchange dlx = new DirectExchange(exchangeDlx);
+        List<Declarable> declarables = new ArrayList<>();
+        declarables.add(dlx);
+        for (String cola : colas) {
+            Queue dlq = QueueBuilder.durable(cola + SUFIJO_DLQ).build();
+            declarables.add(dlq);
+            declarables.add(BindingBuilder.bind(dlq).to(dlx).with(cola));
+        }
+        return new Declarables(declarables);
+    }
+}
@@ -0,0 +1,86 @@
+package com.dispenser.commons.amqp;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Serializa los eventos de RabbitMQ en CBOR (JSON binario) y marca cada
+ * mensaje con la versión de esquema. Al recibir, el tipo destino es el
+ * parámetro del método @RabbitListener. Los campos desconocidos se ignoran,
+ * así que añadir campos no rompe a los consumidores; un cambio incompatible
+ * debe subir SCHEMA_VERSION.
+ * <p>
+ * Mientras dure la migración también se leen mensajes application/json
+ * (por ejemplo, el flujo externo que publica en envio.completed); se elige
+ * el lector por el content type, nunca por el contenido. Siempre se publica
+ * en CBOR.
+ */
+public class EventoMessageConverter extends AbstractMessageConverter {
+
+    public static final String CONTENT_TYPE = "application/cbor";
+    public static final String SCHEMA_VERSION_HEADER = "x-schema-version";
+    public static final int SCHEMA_VERSION = 1;
+
+    private final ObjectMapper cbor = CBORMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final ObjectMapper json = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Override
+    protected Message createMessage(Object object, MessageProperties messageProperties) {
+        try {
+            byte[] body = cbor.writeValueAsBytes(object);
+            messageProperties.setContentType(CONTENT_TYPE);
+            messageProperties.setContentLength(body.length);
+            messageProperties.setType(object.getClass().getSimpleName());
+            messageProperties.setHeader(SCHEMA_VERSION_HEADER, SCHEMA_VERSION);
+            return new Message(body, messageProperties);
+        } catch (IOException e) {
+            throw new MessageConversionException("No se pudo serializar el evento " + object.getClass().getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        ObjectMapper lector = lectorPara(properties.getContentType());
+        Object version = properties.getHeaders().get(SCHEMA_VERSION_HEADER);
+        if (version instanceof Number numero && numero.intValue() > SCHEMA_VERSION) {
+            throw new MessageConversionException("Versión de esquema no soportada: " + version);
+        }
+        Type tipo = properties.getInferredArgumentType();
+        if (tipo == null) {
+            throw new MessageConversionException("No se puede determinar el tipo del evento " + properties.getType());
+        }
+        try {
+            return lector.readValue(message.getBody(), lector.constructType(tipo));
+        } catch (IOException e) {
+            throw new MessageConversionException("No se pudo leer el evento " + properties.getType(), e);
+        }
+    }
+
+    private ObjectMapper lectorPara(String contentType) {
+        if (CONTENT_TYPE.equals(contentType)) {
+            return cbor;
+        }
+        // Acepta también "application/json;charset=UTF-8"
+        if (contentType != null && contentType.startsWith(MessageProperties.CONTENT_TYPE_JSON)) {
+            return json;
+        }
+        throw new MessageConversionException("Tipo de contenido no soportado: " + contentType);
+    }
+}
@@ -0,0 +1,143 @@
+package com.dispenser.commons.envio;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Motor de tarifas de envío usado por ORDERS-SERVICE y COBRO-SERVICE. Se construye
+ * con dos tablas: zonas (zona;palabras de la dirección que la identifican) y
+ * tarifas (zona;peso_hasta_kg;costo). Los tramos de cada zona se expanden a un
+ * arreglo indexado por kilo, así que cotizar es tokenizar la dirección y leer una
+ * posición. Las tablas por defecto están en envio/zonas.csv y envio/tarifas.csv
+ * de este mismo módulo.
+ */
+public class TarifasEnvio {
+
+    public static final String ZONAS_POR_DEFECTO = "envio/zonas.csv";
+    public static final String TARIFAS_POR_DEFECTO = "envio/tarifas.csv";
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private final Map<String, String> zonaPorPalabra = new HashMap<>();
+    // Costo por zona para cada kilo entero hasta el último tramo de la tabla
+    private final Map<String, double[]> costoPorKilo = new HashMap<>();
+    private final String zonaPorDefecto;
+    private final double pesoUnidadKg;
+    private final double costoKgAdicional;
+
+    public TarifasEnvio(Reader zonas, Reader tarifas, String zonaPorDefecto,
+                        double pesoUnidadKg, double costoKgAdicional) throws IOException {
+        this.zonaPorDefecto = zonaPorDefecto;
+        this.pesoUnidadKg = pesoUnidadKg;
+        this.costoKgAdicional = costoKgAdicional;
+
+        leer("zonas", zonas, 2, campos -> {
+            for (String palabra : normalizar(campos[1])) {
+                if (!palabra.isEmpty()) {
+                    zonaPorPalabra.putIfAbsent(palabra, campos[0].trim());
+                }
+            }
+        });
+
+        Map<String, TreeMap<Integer, Double>> tramos = new HashMap<>();
+        leer("tarifas", tarifas, 3, campos -> {
+            int hastaKg = Integer.parseInt(campos[1].trim());
+            if (hastaKg <= 0) {
+                throw new IllegalArgumentException("peso_hasta_kg debe ser mayor que cero");
+            }
+            tramos.computeIfAbsent(campos[0].trim(), zona -> new TreeMap<>()).put(hastaKg, Double.parseDouble(campos[2].trim()));
+        });
+        tramos.forEach((zona, porPeso) -> {
+            double[] costos = new double[porPeso.lastKey() + 1];
+            for (int kilo = 0; kilo < costos.length; kilo++) {
+                costos[kilo] = porPeso.ceilingEntry(kilo).getValue();
+            }
+            costoPorKilo.put(zona, costos);
+        });
+
+        if (!costoPorKilo.containsKey(zonaPorDefecto)) {
+            throw new IllegalStateException("La zona por defecto '" + zonaPorDefecto + "' no tiene tarifas de envío");
+        }
+        for (String zona : zonaPorPalabra.values()) {
+            if (!costoPorKilo.containsKey(zona)) {
+                throw new IllegalStateException("La zona '" + zona + "' no tiene tarifas de envío");
+            }
+        }
+    }
+
+    public double cotizar(int unidades, String direccion) {
+        return cotizarZona(unidades, zona(direccion));
+    }
+
+    // Decide la última palabra con zona asignada: la ciudad o provincia suele ir al final de la dirección
+    public String zona(String direccion) {
+        String encontrada = zonaPorDefecto;
+        if (direccion != null) {
+            for (String palabra : normalizar(direccion)) {
+                String zona = zonaPorPalabra.get(palabra);
+                if (zona != null) {
+                    encontrada = zona;
+                }
+            }
+        }
+        return encontrada;
+    }
+
+    public double cotizarZona(int unidades, String zona) {
+        if (unidades <= 0) {
+            return 0.0;
+        }
+        double[] costos = costoPorKilo.getOrDefault(zona, costoPorKilo.get(zonaPorDefecto));
+        int kilos = (int) Math.ceil(unidades * pesoUnidadKg);
+        int ultimo = costos.length - 1;
+        if (kilos <= ultimo) {
+            return costos[kilos];
+        }
+        // Por encima del último tramo: su costo más un recargo por kilo
+        return costos[ultimo] + (kilos - ultimo) * costoKgAdicional;
+    }
+
+    public int zonas() {
+        return costoPorKilo.size();
+    }
+
+    public int palabras() {
+        return zonaPorPalabra.size();
+    }
+
+    private static String[] normalizar(String texto) {
+        String sinTildes = DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.split(sinTildes.toLowerCase(Locale.ROOT));
+    }
+
+    // Líneas "a;b;c"; se ignoran las vacías y las que empiezan por #
+    private static void leer(String tabla, Reader origen, int campos, Consumer<String[]> fila) throws IOException {
+        BufferedReader lector = new BufferedReader(origen);
+        String linea;
+        int numero = 0;
+        while ((linea = lector.readLine()) != null) {
+            numero++;
+            if (linea.isBlank() || linea.stripLeading().startsWith("#")) {
+                continue;
+            }
+            String[] partes = linea.split(";", -1);
+            try {
+                if (partes.length != campos) {
+                    throw new IllegalArgumentException("se esperaban " + campos + " campos separados por ';'");
+                }
+                fila.accept(partes);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Tabla de " + tabla + ", línea " + numero + ": " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.dispenser.commons.amqp;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.retry.RepublishMessageRecoverer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class DlqMessageRecovererTest {
+
+    private final AmqpTemplate template = mock(AmqpTemplate.class);
+    private final DlqMessageRecoverer recoverer = new DlqMessageRecoverer(template, "servicio.dlx");
+
+    @Test
+    void republicaEnElDlxConLaColaDeOrigenComoRoutingKey() {
+        recoverer.recover(mensaje("servicio.cobro.queue"), new IllegalStateException("sin conexión"));
+
+        ArgumentCaptor<Message> enviado = ArgumentCaptor.forClass(Message.class);
+        verify(template).send(eq("servicio.dlx"), eq("servicio.cobro.queue"), enviado.capture());
+        assertThat((String) enviado.getValue().getMessageProperties().getHeader(RepublishMessageRecoverer.X_EXCEPTION_MESSAGE))
+                .contains("sin conexión");
+    }
+
+    @Test
+    void republicaCadaMensajeDeUnLote() {
+        recoverer.recover(List.of(mensaje("servicio.stock.queue"), mensaje("servicio.stock.queue")), new RuntimeException("lote"));
+
+        verify(template, times(2)).send(eq("servicio.dlx"), eq("servicio.stock.queue"), any(Message.class));
+    }
+
+    @Test
+    void declaraUnaDlqPorColaEnlazadaAlDlx() {
+        var declarables = DlqMessageRecoverer.declarables("servicio.dlx", "a.queue", "b.queue");
+
+        assertThat(declarables.getDeclarablesByType(Queue.class))
+                .extracting(Queue::getName)
+                .containsExactly("a.queue.dlq", "b.queue.dlq");
+        assertThat(declarables.getDeclarablesByType(Binding.class))
+                .extracting(Binding::getExchange, Binding::getRoutingKey, Binding::getDestination)
+                .containsExactly(
+                        tuple("servicio.dlx", "a.queue", "a.queue.dlq"),
+                        tuple("servicio.dlx", "b.queue", "b.queue.dlq"));
+    }
+
+    private static Message mensaje(String cola) {
+        MessageProperties properties = new MessageProperties();
+        properties.setConsumerQueue(cola);
+        return new Message("{}".getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
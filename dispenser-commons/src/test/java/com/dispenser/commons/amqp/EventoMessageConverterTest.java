@@ -0,0 +1,69 @@
+package com.dispenser.commons.amqp;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventoMessageConverterTest {
+
+    record Item(Long idProducto, int cantidad) {
+    }
+
+    record OrdenCreada(Long idOrden, List<Item> items) {
+    }
+
+    private final EventoMessageConverter converter = new EventoMessageConverter();
+
+    @Test
+    void publicaEnCborConVersionDeEsquemaYLoLeeDeVuelta() {
+        OrdenCreada evento = new OrdenCreada(36L, List.of(new Item(7L, 2), new Item(9L, 1)));
+
+        Message mensaje = converter.toMessage(evento, new MessageProperties());
+
+        MessageProperties properties = mensaje.getMessageProperties();
+        assertThat(properties.getContentType()).isEqualTo(EventoMessageConverter.CONTENT_TYPE);
+        assertThat(properties.getType()).isEqualTo("OrdenCreada");
+        assertThat((Object) properties.getHeader(EventoMessageConverter.SCHEMA_VERSION_HEADER))
+                .isEqualTo(EventoMessageConverter.SCHEMA_VERSION);
+        properties.setInferredArgumentType(OrdenCreada.class);
+        assertThat(converter.fromMessage(mensaje)).isEqualTo(evento);
+    }
+
+    @Test
+    void aceptaProductoresQueAunPublicanJson() {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType("application/json;charset=UTF-8");
+        properties.setInferredArgumentType(OrdenCreada.class);
+        byte[] body = """
+                {"idOrden":36,"items":[{"idProducto":7,"cantidad":2}],"canal":"mulesoft"}
+                """.getBytes(StandardCharsets.UTF_8);
+
+        Object evento = converter.fromMessage(new Message(body, properties));
+
+        assertThat(evento).isEqualTo(new OrdenCreada(36L, List.of(new Item(7L, 2))));
+    }
+
+    @Test
+    void rechazaTiposDeContenidoYVersionesDesconocidos() {
+        MessageProperties texto = new MessageProperties();
+        texto.setContentType(MessageProperties.CONTENT_TYPE_TEXT_PLAIN);
+        texto.setInferredArgumentType(OrdenCreada.class);
+        assertThatThrownBy(() -> converter.fromMessage(new Message("36,pendiente".getBytes(StandardCharsets.UTF_8), texto)))
+                .isInstanceOf(MessageConversionException.class)
+                .hasMessageContaining("text/plain");
+
+        Message futuro = converter.toMessage(new OrdenCreada(36L, List.of()), new MessageProperties());
+        futuro.getMessageProperties().setHeader(EventoMessageConverter.SCHEMA_VERSION_HEADER, EventoMessageConverter.SCHEMA_VERSION + 1);
+        futuro.getMessageProperties().setInferredArgumentType(OrdenCreada.class);
+        assertThatThrownBy(() -> converter.fromMessage(futuro))
+                .isInstanceOf(MessageConversionException.class)
+                .hasMessageContaining("esquema");
+    }
+}
@@ -0,0 +1,108 @@
+package com.dispenser.commons.amqp.benchmark;
+
+import com.dispenser.commons.amqp.EventoMessageConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ida y vuelta (toMessage + fromMessage) de un evento de stock con N ítems en
+ * los tres formatos que han circulado por RabbitMQ: el texto "idProducto:cantidad,..."
+ * que se parseaba a mano, JSON con Jackson2JsonMessageConverter y CBOR con
+ * EventoMessageConverter. Además de la latencia conviene mirar el tamaño del
+ * cuerpo, que se imprime al preparar cada combinación.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.filtro=EventoMessageConverter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventoMessageConverterBenchmark {
+
+    public record Item(Long idProducto, int cantidad) {
+    }
+
+    public record StockEvent(Long idOrden, List<Item> items) {
+    }
+
+    @Param({"1", "10", "100"})
+    int items;
+
+    private final SimpleMessageConverter texto = new SimpleMessageConverter();
+    private final Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+    private final EventoMessageConverter cbor = new EventoMessageConverter();
+
+    private StockEvent evento;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        List<Item> lista = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            lista.add(new Item(10_000L + i, 1 + i % 5));
+        }
+        evento = new StockEvent(123_456L, lista);
+        System.out.printf("items=%d bytes: texto=%d json=%d cbor=%d%n", items,
+                texto.toMessage(aTexto(evento), new MessageProperties()).getBody().length,
+                json.toMessage(evento, new MessageProperties()).getBody().length,
+                cbor.toMessage(evento, new MessageProperties()).getBody().length);
+    }
+
+    @Benchmark
+    public StockEvent textoPlano() {
+        Message mensaje = texto.toMessage(aTexto(evento), new MessageProperties());
+        return deTexto(evento.idOrden(), (String) texto.fromMessage(mensaje));
+    }
+
+    @Benchmark
+    public Object jackson2Json() {
+        Message mensaje = json.toMessage(evento, new MessageProperties());
+        mensaje.getMessageProperties().setInferredArgumentType(StockEvent.class);
+        return json.fromMessage(mensaje);
+    }
+
+    @Benchmark
+    public Object eventoCbor() {
+        Message mensaje = cbor.toMessage(evento, new MessageProperties());
+        mensaje.getMessageProperties().setInferredArgumentType(StockEvent.class);
+        return cbor.fromMessage(mensaje);
+    }
+
+    // Formato previo del mensaje de stock: "idProducto:cantidad,idProducto:cantidad"
+    private static String aTexto(StockEvent evento) {
+        StringBuilder sb = new StringBuilder();
+        for (Item item : evento.items()) {
+            sb.append(item.idProducto()).append(':').append(item.cantidad()).append(',');
+        }
+        sb.setLength(sb.length() - 1);
+        return sb.toString();
+    }
+
+    private static StockEvent deTexto(Long idOrden, String mensaje) {
+        List<Item> lista = new ArrayList<>();
+        for (String parte : mensaje.split(",")) {
+            String[] campos = parte.split(":");
+            lista.add(new Item(Long.parseLong(campos[0]), Integer.parseInt(campos[1])));
+        }
+        return new StockEvent(idOrden, lista);
+    }
+}
@@ -0,0 +1,98 @@
+package com.dispenser.commons.envio;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TarifasEnvioTest {
+
+    private static final String ZONAS = """
+            # zona;palabras
+            local;centro norte
+            """;
+    private static final String TARIFAS = """
+            nacional;1;5.00
+            nacional;5;15.00
+            local;2;3.00
+            local;10;8.00
+            """;
+
+    private TarifasEnvio tarifas;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tarifas = new TarifasEnvio(new StringReader(ZONAS), new StringReader(TARIFAS), "nacional", 1.0, 2.0);
+    }
+
+    @Test
+    void resuelveLaZonaSinDistinguirTildesNiMayusculas() {
+        assertThat(tarifas.zona("Av. Amazonas, Sector NORTE")).isEqualTo("local");
+        assertThat(tarifas.zona("Calle Céntro 12")).isEqualTo("local");
+        assertThat(tarifas.zona("Calle Sur 12")).isEqualTo("nacional");
+        assertThat(tarifas.zona(null)).isEqualTo("nacional");
+    }
+
+    @Test
+    void cotizaPorTramoDePeso() {
+        assertThat(tarifas.cotizarZona(1, "nacional")).isEqualTo(5.00);
+        assertThat(tarifas.cotizarZona(2, "nacional")).isEqualTo(15.00);
+        assertThat(tarifas.cotizarZona(5, "nacional")).isEqualTo(15.00);
+        assertThat(tarifas.cotizar(3, "Barrio Norte")).isEqualTo(8.00);
+        assertThat(tarifas.cotizarZona(0, "local")).isZero();
+    }
+
+    @Test
+    void sumaRecargoPorKiloSobreElUltimoTramo() {
+        assertThat(tarifas.cotizarZona(8, "nacional")).isEqualTo(15.00 + 3 * 2.0);
+    }
+
+    @Test
+    void zonaSinTarifasUsaLaZonaPorDefecto() {
+        assertThat(tarifas.cotizarZona(1, "desconocida")).isEqualTo(5.00);
+    }
+
+    @Test
+    void rechazaTablasMalFormadas() {
+        assertThatThrownBy(() -> new TarifasEnvio(new StringReader(ZONAS), new StringReader("nacional;uno;5.00\n"), "nacional", 1.0, 2.0))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("línea 1");
+        assertThatThrownBy(() -> new TarifasEnvio(new StringReader(ZONAS), new StringReader("local;1;5.00\n"), "nacional", 1.0, 2.0))
+                .isInstanceOf(IllegalStateException.class);
+        // Una zona con palabras pero sin tarifas
+        assertThatThrownBy(() -> new TarifasEnvio(new StringReader(ZONAS), new StringReader("nacional;1;5.00\n"), "nacional", 1.0, 2.0))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("'local'");
+    }
+
+    @Test
+    void lasTablasPorDefectoDistinguenZonas() throws IOException {
+        TarifasEnvio porDefecto;
+        try (Reader zonas = recurso(TarifasEnvio.ZONAS_POR_DEFECTO); Reader tarifasCsv = recurso(TarifasEnvio.TARIFAS_POR_DEFECTO)) {
+            porDefecto = new TarifasEnvio(zonas, tarifasCsv, "nacional", 1.0, 1.5);
+        }
+
+        assertThat(porDefecto.zona("Av. Amazonas N34-120, Quito")).isEqualTo("local");
+        // La calle Guayaquil está en Quito: decide la ciudad, que va al final
+        assertThat(porDefecto.zona("Calle Guayaquil y Chile, Quito")).isEqualTo("local");
+        assertThat(porDefecto.zona("Av. 9 de Octubre 100, Guayaquil")).isEqualTo("principal");
+        assertThat(porDefecto.zona("Puerto Ayora, Galápagos")).isEqualTo("galapagos");
+        assertThat(porDefecto.zona("Tena, Napo")).isEqualTo("oriente");
+        assertThat(porDefecto.zona("Calle sin ciudad 5")).isEqualTo("nacional");
+        assertThat(porDefecto.cotizar(3, "Quito")).isLessThan(porDefecto.cotizar(3, "Guayaquil"));
+        assertThat(porDefecto.cotizar(3, "Guayaquil")).isLessThan(porDefecto.cotizar(3, "Galápagos"));
+    }
+
+    private static Reader recurso(String ruta) {
+        return new InputStreamReader(Objects.requireNonNull(TarifasEnvio.class.getClassLoader().getResourceAsStream(ruta)),
+                StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,84 @@
+package com.dispenser.commons.envio.benchmark;
+
+import com.dispenser.commons.envio.TarifasEnvio;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cotización de un carrito con tablas grandes: zonas x palabras por zona y tramos
+ * de 1 kg hasta pesoMaximoKg. Un carrito de varios almacenes se cotiza como varios
+ * envíos (uno por almacén), así que se mide también el costo de N envíos seguidos.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.filtro=TarifasEnvio
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TarifasEnvioBenchmark {
+
+    @Param({"10", "1000"})
+    int zonas;
+
+    @Param({"50", "5000"})
+    int pesoMaximoKg;
+
+    @Param({"1", "8"})
+    int almacenes;
+
+    private TarifasEnvio tarifas;
+    private String[] direcciones;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        StringBuilder zonasCsv = new StringBuilder();
+        StringBuilder tarifasCsv = new StringBuilder("nacional;1;5.00\n");
+        for (int z = 0; z < zonas; z++) {
+            zonasCsv.append("z").append(z).append(';');
+            for (int p = 0; p < 20; p++) {
+                zonasCsv.append("ciudad").append(z).append('x').append(p).append(' ');
+            }
+            zonasCsv.append('\n');
+            for (int kg = 1; kg <= pesoMaximoKg; kg++) {
+                tarifasCsv.append("z").append(z).append(';').append(kg).append(';').append(3.0 + kg * 0.75).append('\n');
+            }
+        }
+        tarifas = new TarifasEnvio(new StringReader(zonasCsv.toString()), new StringReader(tarifasCsv.toString()),
+                "nacional", 1.0, 1.5);
+
+        direcciones = new String[1024];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < direcciones.length; i++) {
+            direcciones[i] = "Av. Principal N" + i + "-45 y Calle Secundaria, Edificio Torre " + i
+                    + ", ciudad" + random.nextInt(zonas) + "x" + random.nextInt(20);
+        }
+    }
+
+    @Benchmark
+    public void cotizarCarrito(Blackhole blackhole) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double total = 0;
+        for (int envio = 0; envio < almacenes; envio++) {
+            total += tarifas.cotizar(1 + random.nextInt(40), direcciones[random.nextInt(direcciones.length)]);
+        }
+        blackhole.consume(total);
+    }
+}
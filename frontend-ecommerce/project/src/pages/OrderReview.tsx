@@ -65,7 +65,15 @@ const OrderReview: React.FC = () => {
         }));
         setOrders(adjustedOrders);
 
-        const productosResponse = await fetch('http://localhost:8080/api/productos');
+        // Solo los productos que aparecen en las órdenes, no el catálogo entero
+        const idsProducto = Array.from(new Set(
+          ordersData.flatMap((order: Order) => (order.orderProducts || []).map(item => item.idProducto))
+        ));
+        const productosResponse = await fetch('http://localhost:8080/api/productos/batch', {
+          method: 'POST',
+          headers: { 'Content-Type': 'application/json' },
+          body: JSON.stringify(idsProducto),
+        });
         if (!productosResponse.ok) {
           throw new Error(`Error al obtener productos: ${productosResponse.statusText}`);
         }
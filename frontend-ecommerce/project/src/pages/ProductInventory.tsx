@@ -15,55 +15,69 @@ interface Producto {
   categoria: string;
 }
 
+// El catálogo llega paginado y filtrado desde el servidor (/api/productos/catalogo)
+const TAMANO_PAGINA = 24;
+
 const ProductInventory: React.FC = () => {
   const [searchQuery, setSearchQuery] = useState('');
   const [selectedCategory, setSelectedCategory] = useState('');
   const [cart, setCart] = useState<{ [key: string]: number }>({});
   const [productos, setProductos] = useState<Producto[]>([]);
+  const [categorias, setCategorias] = useState<string[]>([]);
+  const [pagina, setPagina] = useState(0);
+  const [totalProductos, setTotalProductos] = useState(0);
+  const [hayMas, setHayMas] = useState(false);
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState<string | null>(null);
 
-  useEffect(() => {
-    const fetchData = async () => {
-      setLoading(true);
-      setError(null);
-
-      try {
-        const response = await fetch('http://localhost:8080/api/productos');
-        if (!response.ok) {
-          throw new Error(`Error al obtener productos: ${response.statusText}`);
-        }
-
-        const data = await response.json();
-        setProductos(data);
-      } catch (err) {
-        console.error('Error fetching data:', err);
-        setError(err instanceof Error ? err.message : 'Error desconocido');
-      } finally {
-        setLoading(false);
+  const fetchPagina = async (numero: number, reemplazar: boolean) => {
+    setLoading(true);
+    setError(null);
+
+    try {
+      const params = new URLSearchParams({ page: String(numero), size: String(TAMANO_PAGINA) });
+      if (searchQuery.trim()) params.set('nombre', searchQuery.trim());
+      if (selectedCategory) params.set('categoria', selectedCategory);
+      const response = await fetch(`http://localhost:8080/api/productos/catalogo?${params}`);
+      if (!response.ok) {
+        throw new Error(`Error al obtener productos: ${response.statusText}`);
       }
-    };
 
+      const data = await response.json();
+      const contenido: Producto[] = data.content || [];
+      setProductos(prev => (reemplazar ? contenido : [...prev, ...contenido]));
+      setPagina(numero);
+      setTotalProductos(data.page?.totalElements ?? contenido.length);
+      setHayMas(numero + 1 < (data.page?.totalPages ?? 0));
+      // Las categorías vistas se acumulan para que el selector no se reduzca al filtrar
+      setCategorias(prev => Array.from(new Set([...prev, ...contenido.map(p => p.categoria).filter(Boolean)])));
+    } catch (err) {
+      console.error('Error fetching data:', err);
+      setError(err instanceof Error ? err.message : 'Error desconocido');
+    } finally {
+      setLoading(false);
+    }
+  };
+
+  useEffect(() => {
     // Cargar carrito desde localStorage al iniciar
     const savedCart = localStorage.getItem('cart');
     if (savedCart) {
       setCart(JSON.parse(savedCart));
     }
-
-    fetchData();
   }, []);
 
+  useEffect(() => {
+    // Vuelve a la primera página al cambiar los filtros, con una pausa para no pedir en cada tecla
+    const espera = setTimeout(() => fetchPagina(0, true), 300);
+    return () => clearTimeout(espera);
+  }, [searchQuery, selectedCategory]);
+
   useEffect(() => {
     // Guardar carrito en localStorage cada vez que cambia
     localStorage.setItem('cart', JSON.stringify(cart));
   }, [cart]);
 
-  const filteredProducts = productos.filter(product => {
-    const matchesSearch = product.nombre.toLowerCase().includes(searchQuery.toLowerCase());
-    const matchesCategory = !selectedCategory || product.categoria === selectedCategory;
-    return matchesSearch && matchesCategory;
-  });
-
   const getStatusBadge = (stock: number) => {
     if (stock === 0) return <Badge variant="danger">Sin Stock</Badge>;
     if (stock <= 5) return <Badge variant="warning">Stock Bajo ({stock})</Badge>;
@@ -115,9 +129,7 @@ const ProductInventory: React.FC = () => {
               label="Categoría"
               options={[
                 { value: '', label: 'Todas las categorías' },
-                ...Array.from(new Set(productos.map(p => p.categoria)))
-                  .filter((cat): cat is string => Boolean(cat))
-                  .map((cat: string) => ({ value: cat, label: cat })),
+                ...categorias.map((cat: string) => ({ value: cat, label: cat })),
               ]}
               value={selectedCategory}
               onChange={setSelectedCategory}
@@ -132,7 +144,7 @@ const ProductInventory: React.FC = () => {
       </Card>
 
       <div className="grid grid-cols-1 md:grid-cols-2 lg:grid-cols-3 gap-6">
-        {loading ? (
+        {loading && productos.length === 0 ? (
           <div className="col-span-full text-center py-12 text-gray-500">
             <Package className="mx-auto mb-2" size={48} />
             <p>Cargando productos...</p>
@@ -143,14 +155,14 @@ const ProductInventory: React.FC = () => {
             <h3 className="text-lg font-semibold text-red-900 mb-2">Error</h3>
             <p className="text-gray-600">{error}</p>
           </Card>
-        ) : filteredProducts.length === 0 ? (
+        ) : productos.length === 0 ? (
           <Card className="col-span-full text-center py-12">
             <Package className="mx-auto text-gray-400 mb-4" size={48} />
             <h3 className="text-lg font-semibold text-gray-900 mb-2">No se encontraron productos</h3>
             <p className="text-gray-600">Intente ajustar los filtros de búsqueda</p>
           </Card>
         ) : (
-          filteredProducts.map(product => (
+          productos.map(product => (
             <Card key={product.idProducto} className="overflow-hidden h-full">
               <div className="aspect-w-16 aspect-h-9 mb-4 flex items-center justify-center">
                 <img
@@ -195,9 +207,17 @@ const ProductInventory: React.FC = () => {
         )}
       </div>
 
+      {hayMas && (
+        <div className="text-center">
+          <Button variant="outline" disabled={loading} onClick={() => fetchPagina(pagina + 1, false)}>
+            {loading ? 'Cargando...' : 'Cargar más'}
+          </Button>
+        </div>
+      )}
+
       <div className="grid grid-cols-1 md:grid-cols-3 gap-4">
         <Card className="text-center">
-          <div className="text-2xl font-bold text-blue-600">{productos.length}</div>
+          <div className="text-2xl font-bold text-blue-600">{totalProductos}</div>
           <div className="text-sm text-gray-600">Total Productos</div>
         </Card>
         <Card className="text-center">
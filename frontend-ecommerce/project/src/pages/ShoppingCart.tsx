@@ -48,7 +48,12 @@ const ShoppingCartPage: React.FC = () => {
         const savedCart = localStorage.getItem('cart');
         if (savedCart) {
           const cartData = JSON.parse(savedCart);
-          const productosResponse = await fetch('http://localhost:8080/api/productos');
+          // Solo los productos del carrito, no el catálogo entero
+          const productosResponse = await fetch('http://localhost:8080/api/productos/batch', {
+            method: 'POST',
+            headers: { 'Content-Type': 'application/json' },
+            body: JSON.stringify(Object.keys(cartData).map(Number)),
+          });
           if (!productosResponse.ok) {
             throw new Error(`Error al obtener productos: ${productosResponse.statusText}`);
           }